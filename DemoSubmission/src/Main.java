@@ -3,8 +3,12 @@ import java.util.List;
 
 import ac.il.afeka.Submission.Submission;
 import ac.il.afeka.fsm.DFSM;
+import ac.il.afeka.fsm.DFSMCache;
 
 public class Main implements Submission, Assignment1 {
+	// machines are often submitted more than once, so we keep the recently used ones compiled
+	private static final DFSMCache machines = new DFSMCache(256);
+
 	public static void main(String[] args) {
 		String dfsmEncoding = "0 1/a b/0 , a , 0; 0,b, 1 ;1, a, 0 ; 1, b, 1/0/ 1";
         DFSM mechine = null;
@@ -26,7 +30,7 @@ public class Main implements Submission, Assignment1 {
 
 	@Override
 	public boolean compute(String dfsmEncoding, String input) throws Exception {
-		 DFSM mechine = new DFSM(dfsmEncoding);
+		 DFSM mechine = machines.get(dfsmEncoding);
 		 return mechine.compute(input);
 	}
 }
@@ -0,0 +1,28 @@
+package ac.il.afeka.fsm.benchmark;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Runs all the benchmarks and writes their results as JSON, so they can be compared across versions.
+ *
+ * <p>Usage: <code>Benchmarks [result file] [benchmark regexp]</code>. The result file defaults to
+ * <code>jmh-result.json</code> and the regexp to all the benchmarks in this package.</p>
+ */
+public class Benchmarks {
+
+	public static void main(String[] args) throws RunnerException {
+
+		String result = args.length > 0 ? args[0] : "jmh-result.json";
+		String include = args.length > 1 ? args[1] : Benchmarks.class.getPackage().getName() + ".*";
+
+		Options options = new OptionsBuilder()
+				.include(include)
+				.resultFormat(ResultFormatType.JSON)
+				.result(result)
+				.build();
+
+		new Runner(options).run();
+	}
+}
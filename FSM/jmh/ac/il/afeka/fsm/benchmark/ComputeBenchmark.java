@@ -0,0 +1,57 @@
+package ac.il.afeka.fsm.benchmark;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ac.il.afeka.fsm.DFSM;
+
+/** Benchmarks of running a machine on an input.
+ *
+ * <p>The machine is compiled during the setup, so the benchmarks measure only the run itself.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComputeBenchmark {
+
+	@Param({"16", "4096"})
+	public int states;
+
+	@Param({"2", "26"})
+	public int symbols;
+
+	@Param({"100", "1000000"})
+	public int length;
+
+	@Param({"1"})
+	public long seed;
+
+	private DFSM machine;
+
+	private String input;
+
+	@Setup
+	public void setUp() throws Exception {
+		machine = new DFSM(RandomDFSM.encoding(states, symbols, seed));
+		machine.compile();
+		input = RandomDFSM.input(length, symbols, seed);
+	}
+
+	@Benchmark
+	public boolean compute() {
+		return machine.compute(input);
+	}
+}
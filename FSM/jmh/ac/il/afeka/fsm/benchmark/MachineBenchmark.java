@@ -0,0 +1,72 @@
+package ac.il.afeka.fsm.benchmark;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ac.il.afeka.fsm.DFSM;
+
+/** Benchmarks of the operations that build a whole new machine: parsing, encoding, minimization and
+ * canonicalization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MachineBenchmark {
+
+	@Param({"16", "256", "4096"})
+	public int states;
+
+	@Param({"2", "26"})
+	public int symbols;
+
+	@Param({"1"})
+	public long seed;
+
+	private String encoding;
+
+	private DFSM machine;
+
+	@Setup
+	public void setUp() throws Exception {
+		encoding = RandomDFSM.encoding(states, symbols, seed);
+		machine = new DFSM(encoding);
+	}
+
+	@Benchmark
+	public DFSM parse() throws Exception {
+		return new DFSM(encoding);
+	}
+
+	@Benchmark
+	public String encode() {
+		return machine.encode();
+	}
+
+	@Benchmark
+	public DFSM minimize() {
+		return machine.minimize();
+	}
+
+	@Benchmark
+	public DFSM removeUnreachableStates() {
+		return machine.removeUnreachableStates();
+	}
+
+	@Benchmark
+	public DFSM toCanonicForm() {
+		return machine.toCanonicForm();
+	}
+}
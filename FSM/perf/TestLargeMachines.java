@@ -0,0 +1,67 @@
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import ac.il.afeka.fsm.DFSM;
+import ac.il.afeka.fsm.benchmark.RandomDFSM;
+
+public class TestLargeMachines {
+
+	private static final int STATES = 50000;
+
+	private static final int SYMBOLS = 26;
+
+	private static final int LENGTH = 10000000;
+
+	@Test(timeout = 60000)
+	public void testParseAndEncode() throws Exception {
+		
+		String encoding = RandomDFSM.encoding(STATES, SYMBOLS, 1);
+		
+		assertEquals(encoding, new DFSM(encoding).encode());
+	}
+
+	@Test(timeout = 60000)
+	public void testBinaryRoundTrip() throws Exception {
+		
+		DFSM aDFSM = new DFSM(RandomDFSM.encoding(STATES, SYMBOLS, 2));
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		aDFSM.writeTo(out);
+		
+		assertEquals(aDFSM.encode(), DFSM.readFrom(new ByteArrayInputStream(out.toByteArray())).encode());
+	}
+
+	@Test(timeout = 120000)
+	public void testMinimize() throws Exception {
+		
+		DFSM minimal = new DFSM(RandomDFSM.encoding(STATES, SYMBOLS, 3)).minimize().toCanonicForm();
+		
+		assertEquals(minimal.encode(), minimal.minimize().toCanonicForm().encode());
+	}
+
+	@Test(timeout = 60000)
+	public void testComputeLongInput() throws Exception {
+		
+		DFSM aDFSM = new DFSM(RandomDFSM.encoding(STATES, SYMBOLS, 4));
+		String input = RandomDFSM.input(LENGTH, SYMBOLS, 4);
+		
+		boolean expected = aDFSM.compute(input);
+		
+		assertEquals(expected, aDFSM.compute(new StringReader(input)));
+	}
+
+	@Test(timeout = 60000)
+	public void testParallelComputeLongInput() throws Exception {
+		
+		DFSM aDFSM = new DFSM(RandomDFSM.encoding(64, SYMBOLS, 5));
+		String input = RandomDFSM.input(LENGTH, SYMBOLS, 5);
+		
+		assertEquals(aDFSM.compute(input), aDFSM.compute(input, ForkJoinPool.commonPool()));
+	}
+}
@@ -0,0 +1,187 @@
+package ac.il.afeka.fsm;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/** Iterates over the strings that a compiled machine accepts, up to a length bound, in the lexicographical order
+ * of its alphabet (shorter strings first, see {@link Alphabet#next(String)}).
+ *
+ * <p>The strings of every length are generated by a depth first search over the transition table that follows
+ * the symbols in the alphabet's order. A branch is only taken if the state it leads to can still reach an
+ * accepting state in exactly the number of symbols left, so the search never backs out of a dead end, and each
+ * string costs <code>O(length k)</code> steps at most. The sets of states that reach acceptance in exactly
+ * <code>r</code> steps are computed lazily, one length at a time, as the iteration proceeds. They only hold
+ * states that are reachable from the initial state, and since each set is determined by the previous one, they
+ * repeat in a cycle from the first set that equals an earlier one. The sets are kept up to that point, so the
+ * iteration ends without scanning the lengths beyond it when no longer string is accepted.</p>
+ */
+final class AcceptedWords implements Iterator<String> {
+
+	private final CompiledDFSM machine;
+
+	private final int maxLength;
+
+	private final BitSet reachable;
+
+	// live.get(r) holds the reachable states from which some string of length r leads to an accepting state, and
+	// first maps every set to the first length it holds for. Once a set repeats, period is the length of the
+	// cycle, and the sets past the end of live are those of the cycle.
+
+	private final List<BitSet> live = new ArrayList<BitSet>();
+
+	private final Map<BitSet, Integer> first = new HashMap<BitSet, Integer>();
+
+	private int period;
+
+	// true if the initial state is in one of the sets of the cycle, that is, if there are arbitrarily long accepted strings
+
+	private boolean unbounded;
+
+	// the search: the path states[0..depth], and the next symbol to try from every state on it
+
+	private int length;
+
+	private int depth;
+
+	private int[] states;
+
+	private int[] symbols;
+
+	private char[] word;
+
+	private String next;
+
+	AcceptedWords(CompiledDFSM machine, int maxLength) {
+		if (maxLength < 0)
+			throw new IllegalArgumentException("Negative length bound " + maxLength);
+
+		this.machine = machine;
+		this.maxLength = maxLength;
+		this.length = -1;
+		this.depth = -1;
+
+		this.reachable = machine.reachable();
+
+		BitSet accepting = new BitSet(machine.stateCount());
+		for(int s = reachable.nextSetBit(0); s >= 0; s = reachable.nextSetBit(s + 1))
+			if (machine.isAccepting(s))
+				accepting.set(s);
+		live.add(accepting);
+		first.put(accepting, 0);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null)
+			next = advance();
+		return next != null;
+	}
+
+	@Override
+	public String next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		String word = next;
+		next = null;
+		return word;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	// returns the next accepted string, or null when there are no more
+
+	private String advance() {
+		final int k = machine.symbolCount();
+
+		while(true) {
+			if (depth < 0 && !startNextLength())
+				return null;
+
+			if (depth == length) {
+				depth--;
+				return new String(word, 0, length);
+			}
+
+			BitSet reaching = live(length - depth - 1);
+			int s = states[depth];
+			boolean descended = false;
+
+			while(symbols[depth] < k) {
+				int c = symbols[depth]++;
+				int t = machine.next(s, c);
+				if (t != CompiledDFSM.DEAD && reaching.get(t)) {
+					word[depth] = machine.symbol(c);
+					depth++;
+					states[depth] = t;
+					symbols[depth] = 0;
+					descended = true;
+					break;
+				}
+			}
+
+			if (!descended)
+				depth--;
+		}
+	}
+
+	// moves the search to the next length that has accepted strings. Returns false if there is none up to maxLength.
+
+	private boolean startNextLength() {
+		int initial = machine.initialState();
+		if (initial == CompiledDFSM.DEAD)
+			return false;
+
+		do {
+			if (length == maxLength)
+				return false;
+			length++;
+			if (period != 0 && length >= live.size() && !unbounded)
+				return false;
+		} while(!live(length).get(initial));
+
+		states = new int[length + 1];
+		symbols = new int[length + 1];
+		word = new char[length];
+		states[0] = initial;
+		depth = 0;
+		return true;
+	}
+
+	private BitSet live(int r) {
+		while(live.size() <= r && period == 0) {
+			BitSet previous = live.get(live.size() - 1);
+			BitSet current = new BitSet(machine.stateCount());
+			for(int s = reachable.nextSetBit(0); s >= 0; s = reachable.nextSetBit(s + 1)) {
+				for(int c = 0; c < machine.classCount(); c++) {
+					int t = machine.nextOnClass(s, c);
+					if (t != CompiledDFSM.DEAD && previous.get(t)) {
+						current.set(s);
+						break;
+					}
+				}
+			}
+
+			Integer repeated = first.get(current);
+			if (repeated == null) {
+				first.put(current, live.size());
+				live.add(current);
+			} else {
+				period = live.size() - repeated;
+				for(int i = repeated; i < live.size(); i++)
+					unbounded |= live.get(i).get(machine.initialState());
+			}
+		}
+
+		if (r < live.size())
+			return live.get(r);
+		int start = live.size() - period;
+		return live.get(start + (r - start) % period);
+	}
+}
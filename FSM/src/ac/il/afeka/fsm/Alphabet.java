@@ -1,11 +1,10 @@
 package ac.il.afeka.fsm;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
+import java.util.NoSuchElementException;
 
 public class Alphabet implements Iterable<Character> {
 
@@ -13,7 +12,7 @@ public class Alphabet implements Iterable<Character> {
 	
 	private List<Character> symbols;
 	
-	private Map<Character, Character> succ;
+	private SymbolIndex index;
 	
 	/** 
 	 * Creates a new alphabet from the given list of symbols. 
@@ -35,18 +34,11 @@ public class Alphabet implements Iterable<Character> {
 		
 		this.symbols = symbols;
 		
-		this.succ = new HashMap<Character, Character>();
+		char[] indexed = new char[symbols.size()];
+		for(int i = 0; i < indexed.length; i++)
+			indexed[i] = symbols.get(i);
 		
-		Iterator<Character> p = symbols.iterator();
-		
-		Character current = null;
-		
-		if (p.hasNext()) 
-			current = p.next();
-		
-		while(p.hasNext()) {
-			succ.put(current, p.next());
-		}
+		this.index = new SymbolIndex(indexed);
 	}
 
 	/** Creates a new alphabet from the string encoding of an alphabet. 
@@ -70,16 +62,14 @@ public class Alphabet implements Iterable<Character> {
 	 */
 	public static Alphabet parse(String encoding) {
 		
-		Scanner scanner = new Scanner(encoding);
+		char[] parsed = EncodingParser.parseSymbols(encoding);
 		
-		List<Character> symbols = new ArrayList<Character>();
+		List<Character> symbols = new ArrayList<Character>(parsed.length);
 		
-		while(scanner.hasNext()) {
-			symbols.add(scanner.next().charAt(0));
+		for(char symbol : parsed) {
+			symbols.add(symbol);
 		}
 		
-		scanner.close();
-		
 		return new Alphabet(symbols);
 	}
 
@@ -127,17 +117,31 @@ public class Alphabet implements Iterable<Character> {
 	 * @return a string encoding of this alphabet
 	 */
 	public String encode() {
-		String encoding = "";
+		StringBuilder encoding = new StringBuilder(2 * symbols.size());
+		
+		try {
+			encodeTo(encoding);
+		} catch (IOException e) {
+			throw new AssertionError(e); // a StringBuilder does not throw
+		}
+		return encoding.toString();
+	}
+
+	/** Appends the encoding of this alphabet, as returned by {@link #encode()}.
+	 * 
+	 * @param out where to append the encoding
+	 * @throws IOException if <code>out</code> throws
+	 */
+	public void encodeTo(Appendable out) throws IOException {
 		
 		Iterator<Character> p = symbols.iterator();
 
 		if (p.hasNext())
-			encoding = encoding + p.next();
+			out.append(p.next());
 		
 		while (p.hasNext()) {
-			encoding = encoding + " " + p.next();
+			out.append(' ').append(p.next());
 		}
-		return encoding;
 	}
 
 	/*
@@ -155,7 +159,24 @@ public class Alphabet implements Iterable<Character> {
 	 * @return true if and only if symbol is a member of this alphabet
 	 */
 	public boolean contains(Character symbol) {
-		return symbols.contains(symbol);
+		return symbol != null && index.indexOf(symbol) != SymbolIndex.NONE;
+	}
+	
+	/** Returns the position of a symbol in the order of this alphabet.
+	 * 
+	 * @param symbol a character
+	 * @return the index of <code>symbol</code> (0 for the first symbol), or -1 if it is not a member of this alphabet
+	 */
+	public int indexOf(char symbol) {
+		return index.indexOf(symbol);
+	}
+	
+	/**
+	 * 
+	 * @return the number of symbols in this alphabet
+	 */
+	public int size() {
+		return symbols.size();
 	}
 	
 	/** Returns the first string in the lexicographical order of this alphabet (it's always the empty string).
@@ -179,28 +200,38 @@ public class Alphabet implements Iterable<Character> {
 	 */
 	public String next(String string) {
 		
-		String nextString = "";
+		if (symbols.isEmpty())
+			throw new NoSuchElementException("The empty string is the only string over an empty alphabet");
 		
-		int i = string.length() - 1;
+		char first = symbols.get(0);
+		int last = symbols.size() - 1;
+		
+		char[] next = string.toCharArray();
 		
 		// abb      baa
 		
-		while(i >=0 && succ.get(string.charAt(i)) == null) {
-			nextString = nextString + symbols.get(0);
+		int i = next.length - 1;
+		while(i >= 0 && index.indexOf(next[i]) == last) {
+			next[i] = first;
 			--i;
 		}
 		
 		if (i >= 0) {
-			nextString = nextString + succ.get(string.charAt(i));
-			i--;
-			while(i >= 0) {
-				nextString = nextString + string.charAt(i);
-				i--;
-			}
+			next[i] = symbols.get(index.indexOf(next[i]) + 1);
+			return new String(next);
 		}
-		else
-			nextString = nextString + symbols.get(0);
 		
-		return new StringBuffer(nextString).reverse().toString();
+		return first + new String(next);
+	}
+	
+	/** Returns an enumerator of the strings over this alphabet, starting at the empty string.
+	 * 
+	 * <p>Prefer it to {@link #next(String)} when enumerating many strings: it advances a single buffer in place 
+	 * instead of creating a new string for every step.</p>
+	 * 
+	 * @return a new enumerator
+	 */
+	public WordEnumerator enumerator() {
+		return new WordEnumerator(this);
 	}
 }
@@ -0,0 +1,34 @@
+package ac.il.afeka.fsm;
+import java.util.concurrent.Callable;
+
+/** Computes a slice of a batch of inputs on a single thread.
+ *
+ * <p>The machine runs directly over every input string, without copying it or allocating anything per input.</p>
+ */
+final class BatchCompute implements Callable<Void> {
+
+	private final CompiledDFSM machine;
+
+	private final String[] inputs;
+
+	private final boolean[] results;
+
+	private final int from;
+
+	private final int to;
+
+	BatchCompute(CompiledDFSM machine, String[] inputs, boolean[] results, int from, int to) {
+		this.machine = machine;
+		this.inputs = inputs;
+		this.results = results;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	public Void call() {
+		for(int i = from; i < to; i++)
+			results[i] = machine.isAccepting(machine.run(machine.initialState(), inputs[i]));
+		return null;
+	}
+}
@@ -0,0 +1,287 @@
+package ac.il.afeka.fsm;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/** A compact, versioned binary format for compiled machines.
+ *
+ * <p>All values are big-endian. The layout is:</p>
+ *
+ * <pre>
+ * int     magic, the characters "DFSM"
+ * byte    version
+ * byte    w, the width in bytes (1, 2 or 4) of a state index in the transition table
+ * int     n, the number of states
+ * int     k, the number of symbols
+ * int     the index of the initial state
+ * int[n]  the ids of the states
+ * char[k] the symbols, in the alphabet's order
+ * n * k   entries of w bytes, the transition table, row by row (all ones for a missing transition)
+ * long[]  (n + 63) / 64 words, a bitset of the accepting states
+ * </pre>
+ */
+final class BinaryFormat {
+
+	static final int MAGIC = 0x4446534D;
+
+	static final int VERSION = 1;
+
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private BinaryFormat() {
+	}
+
+	/** Writes a compiled machine.
+	 *
+	 * @param machine	a compiled machine
+	 * @param out		the stream to write to. It is flushed but not closed.
+	 * @throws IOException if writing to <code>out</code> fails
+	 */
+	static void write(CompiledDFSM machine, OutputStream out) throws IOException {
+		int n = machine.stateCount(), k = machine.symbolCount();
+		int width = width(n);
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeByte(VERSION);
+		data.writeByte(width);
+		data.writeInt(n);
+		data.writeInt(k);
+		data.writeInt(machine.initialState());
+
+		ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+
+		for(int s = 0; s < n; s++) {
+			State state = machine.state(s);
+			chunk = flushIfFull(chunk, 4, data);
+			chunk.putInt(state instanceof IdentifiedState ? ((IdentifiedState) state).id() : s);
+		}
+
+		for(int c = 0; c < k; c++) {
+			chunk = flushIfFull(chunk, 2, data);
+			chunk.putChar(machine.symbol(c));
+		}
+
+		for(int s = 0; s < n; s++) {
+			for(int c = 0; c < k; c++) {
+				chunk = flushIfFull(chunk, width, data);
+				int t = machine.next(s, c);
+				switch(width) {
+				case 1: chunk.put((byte) t); break;
+				case 2: chunk.putChar((char) t); break;
+				default: chunk.putInt(t);
+				}
+			}
+		}
+
+		for(long bits : machine.acceptingBits()) {
+			chunk = flushIfFull(chunk, 8, data);
+			chunk.putLong(bits);
+		}
+
+		data.write(chunk.array(), 0, chunk.position());
+		data.flush();
+	}
+
+	private static ByteBuffer flushIfFull(ByteBuffer chunk, int needed, OutputStream out) throws IOException {
+		if (chunk.remaining() < needed) {
+			out.write(chunk.array(), 0, chunk.position());
+			chunk.clear();
+		}
+		return chunk;
+	}
+
+	// the narrowest width that leaves the all ones value free for the dead state
+
+	private static int width(int n) {
+		if (n < 0xff)
+			return 1;
+		if (n < 0xffff)
+			return 2;
+		return 4;
+	}
+
+	/** Reads a compiled machine from a stream.
+	 *
+	 * <p>Exactly the bytes of the machine are read, so the stream can hold other data after it.</p>
+	 *
+	 * @param in the stream to read from. It is not closed.
+	 * @return the compiled machine
+	 * @throws IOException if reading fails or the data is not a valid machine
+	 */
+	static CompiledDFSM read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+
+		ByteBuffer header = ByteBuffer.allocate(18);
+		data.readFully(header.array());
+		Header h = new Header(header);
+
+		// the exact number of bytes left, so that we never read past the end of the machine
+
+		long left = 4L * h.n + 2L * h.k + (long) h.width * h.n * h.k + 8L * ((h.n + 63) / 64);
+
+		ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+		chunk.limit(0);
+
+		int[] ids = new int[h.n];
+		for(int s = 0; s < h.n; s++) {
+			left = fill(chunk, 4, left, data);
+			ids[s] = chunk.getInt();
+		}
+
+		char[] symbols = new char[h.k];
+		for(int c = 0; c < h.k; c++) {
+			left = fill(chunk, 2, left, data);
+			symbols[c] = chunk.getChar();
+		}
+
+		int[] delta = new int[h.n * h.k];
+		for(int i = 0; i < delta.length; i++) {
+			left = fill(chunk, h.width, left, data);
+			delta[i] = entry(chunk, h.width);
+		}
+
+		long[] accepting = new long[(h.n + 63) / 64];
+		for(int word = 0; word < accepting.length; word++) {
+			left = fill(chunk, 8, left, data);
+			accepting[word] = chunk.getLong();
+		}
+
+		return build(h, ids, symbols, delta, accepting);
+	}
+
+	// makes sure that chunk has at least needed bytes remaining, reading at most left more bytes from in.
+	// Returns the number of bytes that are left to read.
+
+	private static long fill(ByteBuffer chunk, int needed, long left, DataInputStream in) throws IOException {
+		if (chunk.remaining() < needed) {
+			chunk.compact();
+			int toRead = (int) Math.min(chunk.remaining(), left);
+			in.readFully(chunk.array(), chunk.position(), toRead);
+			chunk.position(chunk.position() + toRead);
+			chunk.flip();
+			left -= toRead;
+		}
+		return left;
+	}
+
+	/** Reads a compiled machine directly from a buffer.
+	 *
+	 * <p>The tables are decoded straight from the buffer (which may be a mapped file) without copying it
+	 * onto the heap first. The buffer's position is advanced past the machine, and its byte order is ignored.</p>
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the compiled machine
+	 * @throws IOException if the buffer does not hold a valid machine
+	 */
+	static CompiledDFSM read(ByteBuffer buffer) throws IOException {
+		ByteBuffer data = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+		try {
+			Header h = new Header(data);
+
+			int[] ids = new int[h.n];
+			for(int s = 0; s < h.n; s++)
+				ids[s] = data.getInt();
+
+			char[] symbols = new char[h.k];
+			for(int c = 0; c < h.k; c++)
+				symbols[c] = data.getChar();
+
+			int[] delta = new int[h.n * h.k];
+			for(int i = 0; i < delta.length; i++)
+				delta[i] = entry(data, h.width);
+
+			long[] accepting = new long[(h.n + 63) / 64];
+			for(int word = 0; word < accepting.length; word++)
+				accepting[word] = data.getLong();
+
+			buffer.position(buffer.position() + data.position());
+
+			return build(h, ids, symbols, delta, accepting);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated machine: the buffer ends after " + data.position() + " bytes");
+		}
+	}
+
+	private static int entry(ByteBuffer data, int width) {
+		switch(width) {
+		case 1: {
+			int t = data.get() & 0xff;
+			return t == 0xff ? CompiledDFSM.DEAD : t;
+		}
+		case 2: {
+			int t = data.getChar();
+			return t == 0xffff ? CompiledDFSM.DEAD : t;
+		}
+		default:
+			return data.getInt();
+		}
+	}
+
+	private static CompiledDFSM build(Header h, int[] ids, char[] symbols, int[] delta, long[] acceptingBits) throws IOException {
+		Set<Integer> seenIds = new HashSet<Integer>();
+		State[] states = new State[h.n];
+		for(int s = 0; s < h.n; s++) {
+			if (!seenIds.add(ids[s]))
+				throw new IOException("Duplicate state id " + ids[s]);
+			states[s] = IdentifiedState.valueOf(ids[s]);
+		}
+
+		BitSet seenSymbols = new BitSet();
+		for(char symbol : symbols) {
+			if (seenSymbols.get(symbol))
+				throw new IOException("Duplicate symbol '" + symbol + "'");
+			seenSymbols.set(symbol);
+		}
+
+		for(int i = 0; i < delta.length; i++) {
+			if (delta[i] != CompiledDFSM.DEAD && (delta[i] < 0 || delta[i] >= h.n))
+				throw new IOException("Transition table entry " + i + " refers to state " + delta[i] + " out of " + h.n);
+		}
+
+		// ignore the bits past the last state
+
+		if (h.n % 64 != 0)
+			acceptingBits[acceptingBits.length - 1] &= (1L << h.n) - 1;
+
+		return new CompiledDFSM(states, symbols, delta, h.initialState, acceptingBits);
+	}
+
+	private static final class Header {
+
+		final int width;
+
+		final int n;
+
+		final int k;
+
+		final int initialState;
+
+		Header(ByteBuffer data) throws IOException {
+			if (data.getInt() != MAGIC)
+				throw new IOException("Not a binary DFSM: bad magic number");
+			int version = data.get();
+			if (version != VERSION)
+				throw new IOException("Unsupported binary DFSM version " + version);
+			width = data.get();
+			n = data.getInt();
+			k = data.getInt();
+			initialState = data.getInt();
+
+			if (width != 1 && width != 2 && width != 4)
+				throw new IOException("Invalid transition table width " + width);
+			if (n <= 0 || k < 0 || (long) n * k > Integer.MAX_VALUE)
+				throw new IOException("Invalid machine size: " + n + " states, " + k + " symbols");
+			if (initialState < 0 || initialState >= n)
+				throw new IOException("Invalid initial state " + initialState);
+		}
+	}
+}
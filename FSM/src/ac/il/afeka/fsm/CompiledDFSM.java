@@ -0,0 +1,792 @@
+package ac.il.afeka.fsm;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** A compiled, array based form of a DFSM.
+ *
+ * <p>The states of the machine are renumbered to <code>0..n-1</code> (in their natural order) and the symbols of
+ * its alphabet to <code>0..k-1</code> (in the alphabet's order). Symbols on which every state moves to the same
+ * state share a symbol class, and the classes are numbered <code>0..m-1</code>. The transition function is a single
+ * flat array where the transition from state <code>s</code> on a symbol of class <code>c</code> is stored at
+ * <code>s * m + c</code>, so the table shrinks with the number of distinct columns rather than with the size of
+ * the alphabet.</p>
+ *
+ * <p>Running the machine over an input is a tight loop over primitive values with no allocation and no boxing.
+ * A symbol that is not a member of the alphabet moves the machine to a dead state, denoted by <code>-1</code>,
+ * that rejects every input.</p>
+ *
+ * <p>A state that every symbol leads back to is absorbing: once the machine enters it, the rest of the input cannot
+ * change its state, except for a symbol that is not in the alphabet. The absorbing states are found when the
+ * machine is compiled, and a run stops reading as soon as it enters a non accepting one. After it enters an accepting
+ * one, the rest of the input is only checked for symbols that are not in the alphabet.</p>
+ *
+ * <p>Instances are immutable and can be shared between threads. Use {@link DFSM#compile()} to get the compiled
+ * form of a machine.</p>
+ */
+public final class CompiledDFSM {
+
+	/** The index of the dead state. */
+	public static final int DEAD = -1;
+
+	// the size of the buffers used when reading from streams and channels
+
+	private static final int BUFFER_SIZE = 8192;
+
+	// the size of the windows in which files are mapped into memory
+
+	private static final long WINDOW_SIZE = 1L << 30;
+
+	private final State[] states;
+
+	private final Map<State, Integer> stateIndex;
+
+	private final char[] symbols;
+
+	private final SymbolIndex symbolIndex;
+
+	// the class of every symbol index, and the class of every character of the alphabet
+
+	private final int[] symbolClass;
+
+	private final SymbolIndex classIndex;
+
+	private final int classCount;
+
+	// the transition table, one row per state and one column per symbol class
+
+	private final int[] delta;
+
+	private final int initialState;
+
+	// a bitset of the accepting states: state s is accepting if bit s % 64 of accepting[s / 64] is set
+
+	private final long[] accepting;
+
+	// false if some transition is missing, and leads to the implicit dead state
+
+	private final boolean total;
+
+	// the absorbing states, indexed by state + 1 so that DEAD has an entry: REJECTING for DEAD and the absorbing
+	// states that are not accepting, ACCEPTING for the absorbing states that are, and 0 for the other states
+
+	private final byte[] absorbing;
+
+	private static final byte REJECTING = 1;
+
+	private static final byte ACCEPTING = 2;
+
+	/**
+	 * Creates a compiled machine from its tables. The arrays are not copied.
+	 *
+	 * @param states		the states, in the order of their indices
+	 * @param symbols		the symbols, in the order of their indices
+	 * @param delta			the transition table, <code>states.length * symbols.length</code> entries
+	 * @param initialState	the index of the initial state
+	 * @param accepting		a bitset of the accepting states, <code>(states.length + 63) / 64</code> words
+	 */
+	CompiledDFSM(State[] states, char[] symbols, int[] delta, int initialState, long[] accepting) {
+
+		this.states = states;
+		this.symbols = symbols;
+		this.initialState = initialState;
+		this.accepting = accepting;
+
+		this.stateIndex = new HashMap<State, Integer>();
+		for(int i = 0; i < states.length; i++)
+			stateIndex.put(states[i], i);
+
+		this.symbolIndex = new SymbolIndex(symbols);
+
+		int n = states.length, k = symbols.length;
+		this.symbolClass = SymbolClasses.classify(delta, n, k);
+		this.classCount = SymbolClasses.count(symbolClass);
+		this.classIndex = new SymbolIndex(symbols, symbolClass);
+
+		if (classCount == k) {
+			this.delta = delta;
+		} else {
+			int m = classCount;
+			this.delta = new int[n * m];
+			for(int s = 0; s < n; s++)
+				for(int c = 0; c < k; c++)
+					this.delta[s * m + symbolClass[c]] = delta[s * k + c];
+		}
+
+		boolean total = true;
+		for(int t : this.delta)
+			if (t == DEAD) {
+				total = false;
+				break;
+			}
+		this.total = total;
+
+		this.absorbing = absorbing(this.delta, n, classCount, accepting);
+	}
+
+	// finds the states whose transitions all lead back to them
+
+	private static byte[] absorbing(int[] delta, int n, int m, long[] accepting) {
+		byte[] absorbing = new byte[n + 1];
+		absorbing[0] = REJECTING;
+		for(int s = 0; s < n; s++) {
+			int c = 0;
+			while(c < m && delta[s * m + c] == s)
+				c++;
+			if (c == m)
+				absorbing[s + 1] = (accepting[s >>> 6] & (1L << s)) != 0 ? ACCEPTING : REJECTING;
+		}
+		return absorbing;
+	}
+
+	// a machine with the tables of another machine and different accepting states
+
+	private CompiledDFSM(CompiledDFSM machine, long[] accepting) {
+		this.states = machine.states;
+		this.stateIndex = machine.stateIndex;
+		this.symbols = machine.symbols;
+		this.symbolIndex = machine.symbolIndex;
+		this.symbolClass = machine.symbolClass;
+		this.classIndex = machine.classIndex;
+		this.classCount = machine.classCount;
+		this.delta = machine.delta;
+		this.initialState = machine.initialState;
+		this.accepting = accepting;
+		this.total = machine.total;
+
+		this.absorbing = machine.absorbing.clone();
+		for(int s = 1; s < absorbing.length; s++)
+			if (absorbing[s] != 0)
+				absorbing[s] = absorbing[s] == ACCEPTING ? REJECTING : ACCEPTING;
+	}
+
+	/**
+	 * Compiles a machine straight from the arrays of a parsed encoding, without building its components first. The 
+	 * states are numbered in their natural order, as in {@link #compile(Set, Alphabet, TransitionFunction, State, Set)}.
+	 *
+	 * @param encoding	a parsed encoding
+	 * @return the compiled machine
+	 */
+	static CompiledDFSM compile(EncodingParser encoding) {
+
+		int[] ids = encoding.stateIds.clone();
+		Arrays.sort(ids);
+		int n = 0;
+		for(int i = 0; i < ids.length; i++)
+			if (n == 0 || ids[i] != ids[n - 1])
+				ids[n++] = ids[i];
+
+		State[] states = new State[n];
+		for(int s = 0; s < n; s++)
+			states[s] = IdentifiedState.valueOf(ids[s]);
+
+		char[] symbols = encoding.symbols;
+		SymbolIndex symbolIndex = new SymbolIndex(symbols);
+
+		int k = symbols.length;
+		int[] delta = new int[n * k];
+		Arrays.fill(delta, DEAD);
+		for(int i = 0; i < encoding.transitionCount; i++) {
+			int from = Arrays.binarySearch(ids, 0, n, encoding.fromStateIds[i]);
+			int c = symbolIndex.indexOf(encoding.transitionSymbols[i]);
+			if (from >= 0 && c != SymbolIndex.NONE) {
+				int to = Arrays.binarySearch(ids, 0, n, encoding.toStateIds[i]);
+				delta[from * k + c] = to < 0 ? DEAD : to;
+			}
+		}
+
+		// a symbol that is listed twice gets the column of its first occurrence
+
+		for(int c = 0; c < k; c++) {
+			int first = symbolIndex.indexOf(symbols[c]);
+			if (first != c)
+				for(int s = 0; s < n; s++)
+					delta[s * k + c] = delta[s * k + first];
+		}
+
+		int initial = Arrays.binarySearch(ids, 0, n, encoding.initialStateId);
+
+		long[] accepting = new long[(n + 63) >>> 6];
+		for(int id : encoding.acceptingStateIds) {
+			int i = Arrays.binarySearch(ids, 0, n, id);
+			if (i >= 0)
+				accepting[i >>> 6] |= 1L << i;
+		}
+
+		return new CompiledDFSM(states, symbols.clone(), delta, initial < 0 ? DEAD : initial, accepting);
+	}
+
+	/**
+	 * Compiles a machine from its components. The states are numbered in their natural order.
+	 *
+	 * @param states			the set of states of the machine
+	 * @param alphabet			the machine's alphabet
+	 * @param transitions		the transition mapping of the machine
+	 * @param initialState		the initial state
+	 * @param acceptingStates	the set of accepting states
+	 * @return the compiled machine
+	 */
+	static CompiledDFSM compile(Set<State> states, Alphabet alphabet, TransitionFunction transitions, State initialState, Set<State> acceptingStates) {
+
+		List<State> statesList = new ArrayList<State>(states);
+		Collections.sort(statesList);
+
+		Map<State, Integer> stateIndex = new HashMap<State, Integer>();
+		for(int i = 0; i < statesList.size(); i++)
+			stateIndex.put(statesList.get(i), i);
+
+		List<Character> symbolsList = new ArrayList<Character>();
+		for(Character symbol : alphabet)
+			symbolsList.add(symbol);
+
+		char[] symbols = new char[symbolsList.size()];
+		for(int i = 0; i < symbols.length; i++)
+			symbols[i] = symbolsList.get(i);
+
+		int n = statesList.size(), k = symbols.length;
+		int[] delta = new int[n * k];
+		for(int s = 0; s < n; s++) {
+			for(int c = 0; c < k; c++) {
+				State from = statesList.get(s);
+				State to = transitions.maps(from, symbols[c]) ? transitions.applyTo(from, symbols[c]) : null;
+				Integer t = to == null ? null : stateIndex.get(to);
+				delta[s * k + c] = t == null ? DEAD : t;
+			}
+		}
+
+		Integer initial = stateIndex.get(initialState);
+
+		long[] accepting = new long[(n + 63) >>> 6];
+		for(State s : acceptingStates) {
+			Integer i = stateIndex.get(s);
+			if (i != null)
+				accepting[i >>> 6] |= 1L << i;
+		}
+
+		return new CompiledDFSM(statesList.toArray(new State[n]), symbols, delta, initial == null ? DEAD : initial, accepting);
+	}
+
+	/**
+	 *
+	 * @return the number of states of this machine
+	 */
+	public int stateCount() {
+		return states.length;
+	}
+
+	/**
+	 *
+	 * @return the number of symbols in this machine's alphabet
+	 */
+	public int symbolCount() {
+		return symbols.length;
+	}
+
+	/**
+	 *
+	 * @param index a state index
+	 * @return the state whose index is <code>index</code>
+	 */
+	public State state(int index) {
+		return states[index];
+	}
+
+	/**
+	 *
+	 * @param state a state of this machine
+	 * @return the index of <code>state</code>, or <code>DEAD</code> if it is not a state of this machine
+	 */
+	public int indexOf(State state) {
+		Integer i = stateIndex.get(state);
+		return i == null ? DEAD : i;
+	}
+
+	/**
+	 *
+	 * @param index a symbol index
+	 * @return the symbol whose index is <code>index</code>
+	 */
+	public char symbol(int index) {
+		return symbols[index];
+	}
+
+	/**
+	 *
+	 * @param symbol a character
+	 * @return the index of <code>symbol</code> in the alphabet, or <code>-1</code> if it is not a member of the alphabet
+	 */
+	public int symbolIndex(char symbol) {
+		return symbolIndex.indexOf(symbol);
+	}
+
+	/**
+	 *
+	 * @return the number of symbol classes of this machine
+	 */
+	public int classCount() {
+		return classCount;
+	}
+
+	/**
+	 *
+	 * @param symbol a symbol index
+	 * @return the class of the symbol whose index is <code>symbol</code>
+	 */
+	public int symbolClass(int symbol) {
+		return symbolClass[symbol];
+	}
+
+	/**
+	 *
+	 * @param symbol a character
+	 * @return the class of <code>symbol</code>, or <code>-1</code> if it is not a member of the alphabet
+	 */
+	public int classOf(char symbol) {
+		return classIndex.indexOf(symbol);
+	}
+
+	/**
+	 *
+	 * @return the index of the initial state
+	 */
+	public int initialState() {
+		return initialState;
+	}
+
+	/**
+	 *
+	 * @param state a state index
+	 * @return true if and only if <code>state</code> is an accepting state
+	 */
+	public boolean isAccepting(int state) {
+		return state != DEAD && (accepting[state >>> 6] & (1L << state)) != 0;
+	}
+
+	/**
+	 * Checks whether every state has a transition on every symbol.
+	 *
+	 * @return false if some transitions are missing, and lead to the implicit dead state
+	 */
+	public boolean isTotal() {
+		return total;
+	}
+
+	/**
+	 * Returns a machine that accepts the strings over the alphabet of this machine that this machine rejects.
+	 *
+	 * <p>The machine shares the tables of this machine, and only its bitset of accepting states is flipped.
+	 * Since the implicit dead state cannot be made accepting, this machine must be total.</p>
+	 *
+	 * @return the complement of this machine
+	 * @throws IllegalStateException if this machine is not total
+	 */
+	public CompiledDFSM complement() {
+		if (!total)
+			throw new IllegalStateException("Cannot complement a machine with missing transitions");
+
+		long[] flipped = new long[accepting.length];
+		for(int i = 0; i < flipped.length; i++)
+			flipped[i] = ~accepting[i];
+		if ((states.length & 63) != 0)
+			flipped[flipped.length - 1] &= (1L << states.length) - 1;
+		return new CompiledDFSM(this, flipped);
+	}
+
+	/**
+	 * Checks whether every symbol leads from a state back to it.
+	 *
+	 * @param state a state index
+	 * @return true if and only if <code>state</code> is absorbing
+	 */
+	public boolean isAbsorbing(int state) {
+		return state != DEAD && absorbing[state + 1] != 0;
+	}
+
+	/**
+	 * Checks whether the machine rejects every input from a state.
+	 *
+	 * @param state a state index or <code>DEAD</code>
+	 * @return true if <code>state</code> is <code>DEAD</code>, or an absorbing state that is not accepting
+	 */
+	public boolean isDead(int state) {
+		return absorbing[state + 1] == REJECTING;
+	}
+
+	// the bitset of the accepting states, not copied
+
+	long[] acceptingBits() {
+		return accepting;
+	}
+
+	/**
+	 * Returns the index of the state the machine moves to from <code>state</code> on the symbol whose index is <code>symbol</code>.
+	 *
+	 * @param state		a state index
+	 * @param symbol	a symbol index
+	 * @return			the index of the next state
+	 */
+	public int next(int state, int symbol) {
+		return delta[state * classCount + symbolClass[symbol]];
+	}
+
+	/**
+	 * Returns the index of the state the machine moves to from <code>state</code> on the symbols of class <code>symbolClass</code>.
+	 *
+	 * @param state			a state index
+	 * @param symbolClass	a symbol class
+	 * @return				the index of the next state
+	 */
+	public int nextOnClass(int state, int symbolClass) {
+		return delta[state * classCount + symbolClass];
+	}
+
+	/**
+	 * Returns the states that are reachable from the initial state.
+	 *
+	 * @return a set with the indices of the reachable states
+	 */
+	public BitSet reachable() {
+		BitSet from = new BitSet(states.length);
+		if (initialState != DEAD)
+			from.set(initialState);
+		return reachable(from);
+	}
+
+	/**
+	 * Returns the states that are reachable from a set of states, including these states.
+	 *
+	 * <p>The search keeps a worklist of the states it has not expanded yet, so every state is expanded once
+	 * and the running time is <code>O(n m)</code> for <code>m</code> symbol classes.</p>
+	 *
+	 * @param from the indices of the states to start from
+	 * @return a set with the indices of the reachable states
+	 */
+	public BitSet reachable(BitSet from) {
+		if (from.length() > states.length)
+			throw new IllegalArgumentException("State index " + (from.length() - 1) + " is out of " + states.length + " states");
+
+		BitSet reached = (BitSet) from.clone();
+		search(reached, null, null, null);
+		return reached;
+	}
+
+	/**
+	 * Returns a shortest string that leads from the initial state to one of a set of states.
+	 *
+	 * <p>The search is the one of {@link #reachable()}, but it remembers how it reached every state and stops at
+	 * the first state in <code>targets</code>. It expands the states breadth first, so that state is one of the
+	 * nearest.</p>
+	 *
+	 * @param targets the indices of the states to look for
+	 * @return a shortest string that leads to a state in <code>targets</code>, or null if none of them is reachable
+	 */
+	String shortestWordTo(BitSet targets) {
+		if (initialState == DEAD)
+			return null;
+
+		BitSet reached = new BitSet(states.length);
+		reached.set(initialState);
+		int[] parent = new int[states.length];
+		int[] via = new int[states.length];
+		parent[initialState] = DEAD;
+
+		int target = search(reached, targets, parent, via);
+		if (target == DEAD)
+			return null;
+
+		int length = 0;
+		for(int s = target; parent[s] != DEAD; s = parent[s])
+			length++;
+
+		char[] word = new char[length];
+		for(int s = target; parent[s] != DEAD; s = parent[s])
+			word[--length] = symbols[representative(via[s])];
+		return new String(word);
+	}
+
+	// expands the states in reached breadth first, adding every state they lead to. If targets is not null, stops at 
+	// the first state in targets and returns it; if parent is not null, records the state and the symbol class from 
+	// which every new state was reached
+
+	private int search(BitSet reached, BitSet targets, int[] parent, int[] via) {
+		final int[] delta = this.delta;
+		final int m = classCount;
+
+		int[] worklist = new int[states.length];
+		int head = 0, tail = 0;
+
+		for(int s = reached.nextSetBit(0); s >= 0; s = reached.nextSetBit(s + 1)) {
+			if (targets != null && targets.get(s))
+				return s;
+			worklist[tail++] = s;
+		}
+
+		while(head < tail) {
+			int s = worklist[head++];
+			int row = s * m;
+			for(int c = 0; c < m; c++) {
+				int t = delta[row + c];
+				if (t != DEAD && !reached.get(t)) {
+					reached.set(t);
+					if (parent != null) {
+						parent[t] = s;
+						via[t] = c;
+					}
+					if (targets != null && targets.get(t))
+						return t;
+					worklist[tail++] = t;
+				}
+			}
+		}
+
+		return DEAD;
+	}
+
+	// the index of the first symbol of a symbol class
+
+	private int representative(int symbolClass) {
+		int c = 0;
+		while(this.symbolClass[c] != symbolClass)
+			c++;
+		return c;
+	}
+
+	/**
+	 * Runs this machine over <code>input</code>, starting at <code>state</code>.
+	 *
+	 * @param state	the index of the state to start from
+	 * @param input	the input characters
+	 * @return the index of the state the machine ends in, <code>DEAD</code> if it met a symbol that is not in its alphabet
+	 */
+	public int run(int state, CharSequence input) {
+		final int[] delta = this.delta;
+		final byte[] absorbing = this.absorbing;
+		final int m = classCount;
+		final int length = input.length();
+		int i = 0;
+		for(; i < length && absorbing[state + 1] == 0; i++) {
+			int symbol = classOf(input.charAt(i));
+			state = symbol == DEAD ? DEAD : delta[state * m + symbol];
+		}
+
+		// an accepting absorbing state is only left for the dead state, on a symbol that is not in the alphabet
+
+		if (absorbing[state + 1] == ACCEPTING)
+			for(; i < length; i++)
+				if (classOf(input.charAt(i)) == DEAD)
+					return DEAD;
+		return state;
+	}
+
+	/**
+	 * Runs this machine over <code>length</code> characters of <code>input</code> starting at <code>offset</code>.
+	 *
+	 * @param state		the index of the state to start from
+	 * @param input		a buffer of input characters
+	 * @param offset	the index of the first character to read
+	 * @param length	the number of characters to read
+	 * @return the index of the state the machine ends in, <code>DEAD</code> if it met a symbol that is not in its alphabet
+	 */
+	public int run(int state, char[] input, int offset, int length) {
+		final int[] delta = this.delta;
+		final byte[] absorbing = this.absorbing;
+		final int m = classCount;
+		final int end = offset + length;
+		int i = offset;
+		for(; i < end && absorbing[state + 1] == 0; i++) {
+			int symbol = classOf(input[i]);
+			state = symbol == DEAD ? DEAD : delta[state * m + symbol];
+		}
+
+		if (absorbing[state + 1] == ACCEPTING)
+			for(; i < end; i++)
+				if (classOf(input[i]) == DEAD)
+					return DEAD;
+		return state;
+	}
+
+	/** Returns true if and only if input belongs to this machine's language.
+	 *
+	 * @param input a string
+	 * @return a boolean that indicates if the input is a member of this machine's language or not
+	 */
+	public boolean compute(CharSequence input) {
+		return isAccepting(run(initialState, input));
+	}
+
+	/** Returns true if and only if the characters read from <code>input</code> up to its end form a member of this machine's language.
+	 *
+	 * <p>The input is read in fixed size chunks, so it may be arbitrarily long. Reading stops as soon as the machine
+	 * reaches the dead state, or an absorbing state that is not accepting. The reader is not closed.</p>
+	 *
+	 * @param input a reader
+	 * @return a boolean that indicates if the input is a member of this machine's language or not
+	 * @throws IOException if reading from <code>input</code> fails
+	 */
+	public boolean compute(Reader input) throws IOException {
+		char[] buffer = new char[BUFFER_SIZE];
+		int state = initialState;
+		int read;
+		while(!isDead(state) && (read = input.read(buffer, 0, buffer.length)) != -1) {
+			state = run(state, buffer, 0, read);
+		}
+		return isAccepting(state);
+	}
+
+	/** Returns true if and only if the characters decoded from <code>input</code> up to its end form a member of this machine's language.
+	 *
+	 * <p>Malformed input is replaced by the charset's replacement character. The stream is not closed.</p>
+	 *
+	 * @param input		an input stream
+	 * @param charset	the charset with which to decode the input
+	 * @return a boolean that indicates if the input is a member of this machine's language or not
+	 * @throws IOException if reading from <code>input</code> fails
+	 * @see #compute(Reader)
+	 */
+	public boolean compute(InputStream input, Charset charset) throws IOException {
+		return compute(new InputStreamReader(input, charset));
+	}
+
+	/** Returns true if and only if the characters decoded from <code>input</code> up to its end form a member of this machine's language.
+	 *
+	 * <p>Malformed input is replaced by the charset's replacement character. The channel is expected to be
+	 * in blocking mode, and it is not closed.</p>
+	 *
+	 * @param input		a readable channel
+	 * @param charset	the charset with which to decode the input
+	 * @return a boolean that indicates if the input is a member of this machine's language or not
+	 * @throws IOException if reading from <code>input</code> fails
+	 * @see #compute(Reader)
+	 */
+	public boolean compute(ReadableByteChannel input, Charset charset) throws IOException {
+		CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+		CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+		int state = initialState;
+		boolean endOfInput = false;
+
+		while(!isDead(state) && !endOfInput) {
+			endOfInput = input.read(bytes) == -1;
+			bytes.flip();
+			CoderResult result;
+			do {
+				result = decoder.decode(bytes, chars, endOfInput);
+				state = drain(state, chars);
+			} while(result.isOverflow());
+			bytes.compact();
+		}
+
+		if (!isDead(state)) {
+			while(decoder.flush(chars).isOverflow())
+				state = drain(state, chars);
+			state = drain(state, chars);
+		}
+
+		return isAccepting(state);
+	}
+
+	// runs the machine over the decoded characters in chars and empties it
+
+	private int drain(int state, CharBuffer chars) {
+		chars.flip();
+		state = run(state, chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+		chars.clear();
+		return state;
+	}
+
+	/**
+	 * Runs this machine over the bytes between the position and the limit of <code>input</code>, starting at <code>state</code>.
+	 *
+	 * <p>Every byte is read as a single character in the range <code>0..255</code> (ISO-8859-1). The buffer's
+	 * position is not changed.</p>
+	 *
+	 * @param state	the index of the state to start from
+	 * @param input	a byte buffer
+	 * @return the index of the state the machine ends in, <code>DEAD</code> if it met a symbol that is not in its alphabet
+	 */
+	public int run(int state, ByteBuffer input) {
+		int[] byteClasses = byteClasses();
+		return run(state, input, byteClasses, everyByte(byteClasses));
+	}
+
+	// if every byte is a symbol, the machine stays in an absorbing state up to the end of the input
+
+	private int run(int state, ByteBuffer input, int[] byteClasses, boolean everyByte) {
+		final int[] delta = this.delta;
+		final byte[] absorbing = this.absorbing;
+		final int m = classCount;
+		final int end = input.limit();
+		int i = input.position();
+		for(; i < end && absorbing[state + 1] == 0; i++) {
+			int symbol = byteClasses[input.get(i) & 0xff];
+			state = symbol == DEAD ? DEAD : delta[state * m + symbol];
+		}
+
+		if (absorbing[state + 1] == ACCEPTING && !everyByte)
+			for(; i < end; i++)
+				if (byteClasses[input.get(i) & 0xff] == DEAD)
+					return DEAD;
+		return state;
+	}
+
+	// maps every byte value to the class of the symbol it stands for
+
+	private int[] byteClasses() {
+		int[] byteClasses = new int[256];
+		for(int b = 0; b < byteClasses.length; b++)
+			byteClasses[b] = classOf((char) b);
+		return byteClasses;
+	}
+
+	private static boolean everyByte(int[] byteClasses) {
+		for(int symbol : byteClasses)
+			if (symbol == DEAD)
+				return false;
+		return true;
+	}
+
+	/** Returns true if and only if the bytes of the file read by <code>input</code> form a member of this machine's language.
+	 *
+	 * <p>The file is mapped into memory and the machine runs directly over the mapped bytes, with no copies to the heap.
+	 * Files that are larger than a single mapping are processed as a series of mapped windows. Every byte is read as a single
+	 * character in the range <code>0..255</code> (ISO-8859-1). The channel is not closed.</p>
+	 *
+	 * @param input a file channel open for reading
+	 * @return a boolean that indicates if the content of the file is a member of this machine's language or not
+	 * @throws IOException if mapping the file fails
+	 */
+	public boolean computeMapped(FileChannel input) throws IOException {
+		int[] byteClasses = byteClasses();
+		long size = input.size();
+		int state = initialState;
+		boolean everyByte = everyByte(byteClasses);
+
+		for(long offset = 0; offset < size && !isDead(state) && !(everyByte && isAbsorbing(state)); offset += WINDOW_SIZE) {
+			MappedByteBuffer window = input.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, size - offset));
+			state = run(state, window, byteClasses, everyByte);
+		}
+		return isAccepting(state);
+	}
+}
@@ -1,12 +1,35 @@
 package ac.il.afeka.fsm;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DFSM {
 
@@ -16,6 +39,12 @@ public class DFSM {
 	protected State initialState;
 	protected Alphabet alphabet;
 	
+	private volatile CompiledDFSM compiled;
+	
+	// the arrays of the last parsed encoding, kept until the machine is compiled from them
+	
+	private EncodingParser parsed;
+	
 	/**
 	 * Builds a DFSM from a string representation (encoding) 
 	 *  
@@ -55,9 +84,68 @@ public class DFSM {
 		transitions.verifyNoEpsilonTransitions();
 	}
 	
+	/**
+	 * Builds a partial DFSM from a string representation (encoding).
+	 * 
+	 * <p>Unlike {@link #DFSM(String)}, the encoding does not need a transition from every state on every symbol. A 
+	 * missing transition leads to an implicit dead state that is not a part of the machine: the machine rejects the 
+	 * input as soon as it takes such a transition, and does not read the rest of it.</p>
+	 * 
+	 * @param encoding	the string representation of a partial DFSM
+	 * @return the machine
+	 * @throws Exception if the encoding is incorrect or if it does not represent a deterministic machine
+	 * @see #totalize()
+	 */
+	public static DFSM partial(String encoding) throws Exception {
+		DFSM aDFSM = new DFSM();
+		aDFSM.parse(encoding);
+		
+		aDFSM.transitions.verifyTransitionMapping(aDFSM.states, aDFSM.alphabet);
+		aDFSM.transitions.verifyNoEpsilonTransitions();
+		
+		return aDFSM;
+	}
+	
 	protected DFSM() {
 		// for internal use
 	}
+	
+	// builds the components of a machine from its compiled form
+	
+	DFSM(CompiledDFSM machine) {
+		
+		int n = machine.stateCount(), k = machine.symbolCount();
+		
+		List<Character> symbols = new ArrayList<Character>(k);
+		for(int c = 0; c < k; c++)
+			symbols.add(machine.symbol(c));
+		
+		Set<State> states = new HashSet<State>();
+		Set<State> acceptingStates = new HashSet<State>();
+		Map<State, Map<Character, State> > delta = new HashMap<State, Map<Character, State> >();
+		
+		for(int s = 0; s < n; s++) {
+			State state = machine.state(s);
+			states.add(state);
+			if (machine.isAccepting(s))
+				acceptingStates.add(state);
+			
+			Map<Character, State> row = new HashMap<Character, State>();
+			for(int c = 0; c < k; c++) {
+				int t = machine.next(s, c);
+				if (t != CompiledDFSM.DEAD)
+					row.put(symbols.get(c), machine.state(t));
+			}
+			delta.put(state, row);
+		}
+		
+		this.states = states;
+		this.alphabet = new Alphabet(symbols);
+		this.transitions = new TransitionFunction(delta);
+		this.initialState = machine.state(machine.initialState());
+		this.acceptingStates = acceptingStates;
+		this.compiled = machine;
+	}
 
 	/** Overrides this machine with the machine encoded in string.
 	 * 
@@ -105,41 +193,41 @@ public class DFSM {
 	*/
 	public void parse(String string) throws Exception {
 		
-		Scanner scanner = new Scanner(string);
-		
-		scanner.useDelimiter("\\s*/");
+		EncodingParser encoding = EncodingParser.parseMachine(string);
 			
-		Map<Integer, State> states = new HashMap<Integer, State>();
+		Set<State> states = new HashSet<State>();
 		
-		for(Integer stateId : IdentifiedState.parseStateIdList(scanner.next())) {
-			states.put(stateId, new IdentifiedState(stateId));
+		for(int stateId : encoding.stateIds) {
+			states.add(IdentifiedState.valueOf(stateId));
 		}
 
-		Alphabet alphabet = Alphabet.parse(scanner.next());
+		List<Character> symbols = new ArrayList<Character>(encoding.symbols.length);
+		for(char symbol : encoding.symbols)
+			symbols.add(symbol);
+		
+		Alphabet alphabet = new Alphabet(symbols);
 		
 		Set<Transition> transitions = new HashSet<Transition>();
 		
-		for (TransitionTuple t: TransitionTuple.parseTupleList(scanner.next())) {
-			transitions.add(new Transition(states.get(t.fromStateId()), t.symbol(), states.get(t.toStateId())));
+		for (int i = 0; i < encoding.transitionCount; i++) {
+			transitions.add(new Transition(IdentifiedState.valueOf(encoding.fromStateIds[i]), encoding.transitionSymbols[i], IdentifiedState.valueOf(encoding.toStateIds[i])));
 		}
 		
-		State initialState = states.get(scanner.nextInt());
+		State initialState = IdentifiedState.valueOf(encoding.initialStateId);
 		
 		Set<State> acceptingStates = new HashSet<State>();
 
-		if (scanner.hasNext())
-			for(Integer stateId : IdentifiedState.parseStateIdList(scanner.next())) {
-				acceptingStates.add(states.get(stateId));
-			}
-		
-		scanner.close();
+		for(int stateId : encoding.acceptingStateIds) {
+			acceptingStates.add(IdentifiedState.valueOf(stateId));
+		}
 		
-		this.states = new HashSet<State>(states.values());
+		this.states = states;
 		this.alphabet = alphabet;
 		this.transitions = new TransitionFunction(transitions);
 		this.initialState = initialState;
 		this.acceptingStates = acceptingStates;
-		
+		this.parsed = encoding;
+		this.compiled = null;
 	}
 
 	/** Encodes this state machine as a string
@@ -147,11 +235,72 @@ public class DFSM {
 	 * @return the string encoding of this state machine
 	 */
 	public String encode() {
-		return  State.encodeStateSet(new HashSet<State>(states)) + "/" +
-				alphabet.encode() + "/" + 
-				transitions.encode() + "/" + 
-				initialState.encode() + "/" +
-				State.encodeStateSet(acceptingStates);
+		StringBuilder encoding = new StringBuilder();
+		
+		try {
+			encodeTo(encoding);
+		} catch (IOException e) {
+			throw new AssertionError(e); // a StringBuilder does not throw
+		}
+		
+		return encoding.toString();
+	}
+	
+	/** Appends the encoding of this machine, as returned by {@link #encode()}, part by part.
+	 * 
+	 * <p>The full encoding is never held in memory, so a huge machine can be written directly to a 
+	 * {@link java.io.Writer} (which is an {@link Appendable}). Wrap unbuffered writers in a 
+	 * {@link java.io.BufferedWriter}.</p>
+	 * 
+	 * @param out where to append the encoding. It is neither flushed nor closed.
+	 * @throws IOException if <code>out</code> throws
+	 */
+	public void encodeTo(Appendable out) throws IOException {
+		State.encodeStateSet(states, out);
+		out.append('/');
+		alphabet.encodeTo(out);
+		out.append('/');
+		transitions.encodeTo(out);
+		out.append('/').append(initialState.encode()).append('/');
+		State.encodeStateSet(acceptingStates, out);
+	}
+	
+	/** Writes this state machine in a compact binary format.
+	 * 
+	 * <p>The format holds the ids of the states, the symbols of the alphabet, the transition table with the 
+	 * narrowest fixed width that fits the number of states, and a bitset of the accepting states. 
+	 * Use {@link #readFrom(InputStream)} or {@link #readFrom(ByteBuffer)} to read it back.</p>
+	 * 
+	 * @param out the stream to write to. It is flushed but not closed.
+	 * @throws IOException if writing fails
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		BinaryFormat.write(compile(), out);
+	}
+	
+	/** Reads a state machine that was written by {@link #writeTo(OutputStream)}.
+	 * 
+	 * <p>Exactly the bytes of the machine are read, so the stream may hold more data after it.</p>
+	 * 
+	 * @param in the stream to read from. It is not closed.
+	 * @return the machine
+	 * @throws IOException if reading fails or if the data is not a valid machine
+	 */
+	public static DFSM readFrom(InputStream in) throws IOException {
+		return new DFSM(BinaryFormat.read(in));
+	}
+	
+	/** Reads a state machine that was written by {@link #writeTo(OutputStream)} directly from a buffer.
+	 * 
+	 * <p>The tables are decoded from the buffer (which may be a memory mapped file) without copying it first. 
+	 * The position of the buffer is advanced past the machine.</p>
+	 * 
+	 * @param buffer the buffer to read from
+	 * @return the machine
+	 * @throws IOException if the buffer does not hold a valid machine
+	 */
+	public static DFSM readFrom(ByteBuffer buffer) throws IOException {
+		return new DFSM(BinaryFormat.read(buffer));
 	}
 	
 	/** Prints a set notation description of this machine.
@@ -191,61 +340,166 @@ public class DFSM {
 		return removeUnreachableStates().minimizeWithNoUnreachableStates();
 	}
 	
+	/** Checks whether this machine has a transition from every state on every symbol of its alphabet.
+	 * 
+	 * @return false if this is a partial machine with missing transitions
+	 * @see #partial(String)
+	 */
+	public boolean isTotal() {
+		return compile().isTotal();
+	}
+	
+	/** Returns a version of this machine that has a transition from every state on every symbol.
+	 * 
+	 * @return this machine if it is total, and otherwise a machine with a new, non accepting state to which all the 
+	 * missing transitions lead
+	 */
+	public DFSM totalize() {
+		
+		if (isTotal())
+			return this;
+		
+		int free = 0;
+		for(State s : states)
+			if (s instanceof IdentifiedState)
+				free = Math.max(free, ((IdentifiedState) s).id() + 1);
+		State sink = IdentifiedState.valueOf(free);
+		
+		Set<State> totalStates = new HashSet<State>(states);
+		totalStates.add(sink);
+		
+		Set<Transition> totalTransitions = transitions.transitions();
+		for(State s : totalStates)
+			for(Character symbol : alphabet)
+				if (!transitions.maps(s, symbol))
+					totalTransitions.add(new Transition(s, symbol, sink));
+		
+		DFSM aDFSM = new DFSM();
+		
+		aDFSM.states = totalStates;
+		aDFSM.alphabet = alphabet;
+		aDFSM.transitions = new TransitionFunction(totalTransitions);
+		aDFSM.initialState = initialState;
+		aDFSM.acceptingStates = acceptingStates;
+		
+		return aDFSM;
+	}
+	
+	/** Returns a machine that accepts the strings over the alphabet of this machine that this machine rejects.
+	 * 
+	 * <p>The complement shares the states and transitions of this machine, and its compiled tables share the 
+	 * transition table with only the accepting bits inverted. Its set of accepting states is still built state by 
+	 * state, so the cost is linear in the number of states. The complement of a partial machine is built from 
+	 * {@link #totalize()}, since its dead state becomes accepting.</p>
+	 * 
+	 * @return the complement of this machine
+	 */
+	public DFSM complement() {
+		
+		DFSM total = totalize();
+		
+		Set<State> rejectingStates = new HashSet<State>();
+		for(State s : total.states)
+			if (!total.acceptingStates.contains(s))
+				rejectingStates.add(s);
+		
+		DFSM aDFSM = new DFSM();
+		
+		aDFSM.states = total.states;
+		aDFSM.alphabet = total.alphabet;
+		aDFSM.transitions = total.transitions;
+		aDFSM.initialState = total.initialState;
+		aDFSM.acceptingStates = rejectingStates;
+		aDFSM.compiled = total.compile().complement();
+		
+		return aDFSM;
+	}
+	
 	/** Returns a version of this state machine with all the unreachable states removed.
 	 * 
 	 * @return DFSM that recognizes the same language as this machine, but has no unreachable states.
 	 */
 	public DFSM removeUnreachableStates() {
 
-		Set<State> reachableStates = reachableStates();
-
-		Set<Transition> transitionsToReachableStates = new HashSet<Transition>();
+		CompiledDFSM machine = compile();
 		
-		for(Transition t : transitions.transitions()) {
-			if (reachableStates.contains(t.fromState()) && reachableStates.contains(t.toState()))
-				transitionsToReachableStates.add(t);
-		}
+		BitSet reachable = machine.reachable();
 		
+		Set<State> reachableStates = new HashSet<State>();
 		Set<State> reachableAcceptingStates = new HashSet<State>();
-		for(State s : acceptingStates) {
-			if (reachableStates.contains(s))
-				reachableAcceptingStates.add(s);
+		Map<State, Map<Character, State> > delta = new HashMap<State, Map<Character, State> >();
+		
+		// the successors of a reachable state are reachable, so all of its transitions are kept
+		
+		for(int s = reachable.nextSetBit(0); s >= 0; s = reachable.nextSetBit(s + 1)) {
+			State state = machine.state(s);
+			reachableStates.add(state);
+			if (machine.isAccepting(s))
+				reachableAcceptingStates.add(state);
+			
+			Map<Character, State> row = new HashMap<Character, State>();
+			for(int c = 0; c < machine.symbolCount(); c++) {
+				int t = machine.next(s, c);
+				if (t != CompiledDFSM.DEAD)
+					row.put(machine.symbol(c), machine.state(t));
+			}
+			delta.put(state, row);
 		}
 		
 		DFSM aDFSM = new DFSM();
 		
 		aDFSM.states = reachableStates;
 		aDFSM.alphabet = alphabet;
-		aDFSM.transitions = new TransitionFunction(transitionsToReachableStates);
+		aDFSM.transitions = new TransitionFunction(delta);
 		aDFSM.initialState = initialState;
 		aDFSM.acceptingStates = reachableAcceptingStates;
 		
 		return aDFSM;
 	}
 	
-	// returns a set of all states that are reachable from the initial state
+	/** Returns the states of this machine that are reachable from its initial state.
+	 * 
+	 * <p>The search runs over the compiled form of the machine. Use {@link CompiledDFSM#reachable()} to get the 
+	 * result as a bitset of state indices.</p>
+	 * 
+	 * @return the set of reachable states
+	 */
+	public Set<State> reachableStates() {
+		return states(compile().reachable());
+	}
 	
-	private Set<State> reachableStates() {
+	/** Returns the states of this machine that are reachable from a set of its states, including these states.
+	 * 
+	 * @param from a set of states of this machine
+	 * @return the set of states reachable from <code>from</code>
+	 * @throws IllegalArgumentException if <code>from</code> contains a state that is not a state of this machine
+	 */
+	public Set<State> reachableStates(Set<State> from) {
 		
-		Set<State> reachable = new HashSet<State>();
-
-		Set<State> newlyReachable = new HashSet<State>();
-
-		newlyReachable.add(initialState);
-
-		while(!newlyReachable.isEmpty()) {
-			reachable.addAll(newlyReachable);
-			newlyReachable = new HashSet<State>();
-			for(State state : reachable) {
-				for(Character symbol : alphabet) {
-					State s = transitions.applyTo(state, symbol);
-					if (!reachable.contains(s))
-						newlyReachable.add(s);
-				}
-			}
+		CompiledDFSM machine = compile();
+		
+		BitSet indices = new BitSet(machine.stateCount());
+		for(State s : from) {
+			int i = machine.indexOf(s);
+			if (i == CompiledDFSM.DEAD)
+				throw new IllegalArgumentException("State " + s + " is not a state of this machine");
+			indices.set(i);
 		}
 		
-		return reachable;
+		return states(machine.reachable(indices));
+	}
+	
+	// the states whose indices in the compiled machine are in indices
+	
+	private Set<State> states(BitSet indices) {
+		
+		CompiledDFSM machine = compile();
+		
+		Set<State> states = new HashSet<State>();
+		for(int s = indices.nextSetBit(0); s >= 0; s = indices.nextSetBit(s + 1))
+			states.add(machine.state(s));
+		
+		return states;
 	}
  
 	private DFSM minimizeWithNoUnreachableStates()  {
@@ -276,98 +530,26 @@ public class DFSM {
 	}
 	
 	// returns a map that maps each state to a representative of their equivalence class.
+	// The classes are computed with Hopcroft's partition refinement over the compiled transition table, 
+	// and the representative of each class is its member with the lowest index.
 	
 	private Map<State, State> equivalentStates() {
-
-		 Map<State, State> prevEcc = new HashMap<State, State>();
-
-		 Map<State, State> ecc = new HashMap<State, State>();
-		 
-		 /* We will represent each equivalence classes with a representative member 
-and use a dictionary to map each state to this representative.
-
-First we create two equivalence classes, put all the accepting states in the first
-and all the non accepting states in the second. */
-
-		 if (!acceptingStates.isEmpty()) {
-			 State rep = acceptingStates.iterator().next();
-			 for(State state : acceptingStates)
-					 ecc.put(state, rep);
-		 }
-		 
-		 Set<State> nonAcceptingStates = new HashSet<State>(states);
-		 nonAcceptingStates.removeAll(acceptingStates);
-		 
-		 if (!nonAcceptingStates.isEmpty()) {
-			 State rep = nonAcceptingStates.iterator().next();
-			 for(State state : nonAcceptingStates)
-				 ecc.put(state, rep);
-		 }
-		 
-/*		The invariant for the following loop is:
-
-		1. for any s -> r association in ecc, s is equivalent to r in prevEcc,
-		2. for any input symbol c, the destination of the transition from s on c is equivalent (in prevEcc) to the destiation of the transition from r to c,
-		3. for any two values r1, r2 in ecc, they are not equivalent to each other in prevEcc,
-		4. all the equivalence classes in prevEcc have a representative in ecc.
-
-*/
-
-		 while(!prevEcc.equals(ecc)) {
 		
-			 prevEcc = ecc;
-			 
-			 ecc = new HashMap<State, State>();
-			 
-/*		To establish the invariant we will set ecc with the associations of the form
-
-		r -> r where r is a representative from prevEcc. 
-
-		This will initially satisfy the invariant because our action establishes 
-		condition (4) and conditions (1) and (2) and (3) are correct by induction 
-		from the validity of prevEcc."
-*/
-			 for(State state : prevEcc.values()) {
-				 ecc.put(state,  state);
-			 }
-			 
-			 for(State state : states) {
-				 
-/*		For each state s, we look in ecc for a rep r that is equivalent to s in prevEcc 
-		(that is, s's rep in prevEcc is r and for every input they transition to the same 
-		equivalence class in prevEcc) and add s to ecc with the same equivalence rep. 
-		If no state is equivalent to s, we add s to ecc as its own rep. */
-			 
-				 Iterator<State> p = ecc.keySet().iterator();
-				 State rep = null;
-				 boolean equivalent = false;
-				 while(p.hasNext() && !equivalent) {
-					 rep = p.next();
-					 equivalent = equivalentIn(prevEcc, state, rep);
-				 }
-				 if (equivalent) 
-					 ecc.put(state, rep);
-				 else
-					 ecc.put(state,  state);
-			 }
-		 }
-		 
-		 return ecc;
-	}
-	
-	private boolean equivalentIn(Map<State, State> equivRel, State s, State t) {
-		if (equivRel.get(s) != equivRel.get(t) )
-			return false;
-		
-		boolean equiv = true;
-		Iterator<Character> p = alphabet.iterator();
-		Character symbol = null;
-		while (p.hasNext() && equiv) {
-			symbol = p.next();
-			equiv = equivRel.get(transitions.applyTo(s, symbol)) == equivRel.get(transitions.applyTo(t,  symbol));
+		CompiledDFSM machine = compile();
+		
+		int[] blockOf = Hopcroft.partition(machine);
+		
+		State[] reps = new State[blockOf.length];
+		
+		Map<State, State> ecc = new HashMap<State, State>();
+		
+		for(int s = 0; s < machine.stateCount(); s++) {
+			if (reps[blockOf[s]] == null)
+				reps[blockOf[s]] = machine.state(s);
+			ecc.put(machine.state(s), reps[blockOf[s]]);
 		}
 		
-		return equiv;
+		return ecc;
 	}
 
 	// Traverse the state machine graph in a depth first fashion, fixing the traversal order of the transitions 
@@ -385,18 +567,20 @@ and all the non accepting states in the second. */
 		Set<Transition> canonicTransitions = new HashSet<Transition>();
 		Stack<State> todo = new Stack<State>();
 		Map<State, State> canonicStates = new HashMap<State, State>();
-		Integer free = 0;
+		int free = 0;
 		
 		todo.push(initialState);
-		canonicStates.put(initialState, new IdentifiedState(free));
+		canonicStates.put(initialState, IdentifiedState.valueOf(free));
 		free++;
 		
 		while (!todo.isEmpty()) {
 			State top = todo.pop();
 			for(Character symbol : alphabet) {
+				if (!transitions.maps(top, symbol))
+					continue;
 				State nextState = transitions.applyTo(top, symbol);
 				if (!canonicStates.containsKey(nextState)) {
-					canonicStates.put(nextState, new IdentifiedState(free));
+					canonicStates.put(nextState, IdentifiedState.valueOf(free));
 					todo.push(nextState);
 					free++;
 				}
@@ -421,17 +605,402 @@ and all the non accepting states in the second. */
 	}
 	
 	
+	/** Returns the compiled form of this machine.
+	 * 
+	 * <p>The compiled form is built on the first call and reused afterwards. A machine that was parsed from an 
+	 * encoding is compiled straight from the parsed arrays.</p>
+	 * 
+	 * @return the compiled form of this machine
+	 */
+	public CompiledDFSM compile() {
+		CompiledDFSM c = compiled;
+		if (c == null) {
+			EncodingParser p = parsed;
+			c = p != null ? CompiledDFSM.compile(p) : CompiledDFSM.compile(states, alphabet, transitions, initialState, acceptingStates);
+			parsed = null;
+			compiled = c;
+		}
+		return c;
+	}
+	
 	/** Returns true if and only if input belongs to this machine's language. 
+	 * 
+	 * <p>Characters that are not members of this machine's alphabet are rejected.</p>
 	 * 
 	 * @param input a string whose characters are members of this machine's alphabet
 	 * @return a boolean that indicates if the input is a member of this machine's language or not
 	 */
 	public boolean compute(String input) {
-		 char[] newArr = input.toCharArray();
-		 State currState = initialState;
-		 for(int i=0; i<newArr.length;i++) {
-			 currState = transitions.applyTo(currState, newArr[i]);
-		 }
-		 return acceptingStates.contains(currState);
-	}
-}
+		return compile().compute(input);
+	}
+	
+	/** Returns true if and only if input belongs to this machine's language, using the threads of pool.
+	 * 
+	 * <p>The input is split into chunks that are run in parallel from every state of this machine, and the 
+	 * results of the chunks are then composed. This pays off for long inputs on machines whose runs from 
+	 * different states quickly converge. Short inputs are computed sequentially.</p>
+	 * 
+	 * @param input a string whose characters are members of this machine's alphabet
+	 * @param pool the pool whose threads run the chunks
+	 * @return a boolean that indicates if the input is a member of this machine's language or not
+	 */
+	public boolean compute(CharSequence input, ForkJoinPool pool) {
+		CompiledDFSM machine = compile();
+		
+		if (input.length() < 2 * SpeculativeRun.CHUNK_SIZE || machine.initialState() == CompiledDFSM.DEAD)
+			return machine.compute(input);
+		
+		int[] mapping = pool.invoke(new SpeculativeRun(machine, input, 0, input.length()));
+		
+		return machine.isAccepting(mapping[machine.initialState()]);
+	}
+	
+	/** Computes every one of inputs, using the common fork/join pool.
+	 * 
+	 * @param inputs strings whose characters are members of this machine's alphabet
+	 * @return an array whose i-th element indicates if the i-th input is a member of this machine's language
+	 * @throws InterruptedException if the current thread is interrupted while waiting for the results
+	 * @see #computeAll(String[], ExecutorService)
+	 */
+	public boolean[] computeAll(String[] inputs) throws InterruptedException {
+		return computeAll(inputs, ForkJoinPool.commonPool());
+	}
+	
+	/** Computes every one of inputs, in the iteration order of the collection, using the common fork/join pool.
+	 * 
+	 * @param inputs strings whose characters are members of this machine's alphabet
+	 * @return an array whose i-th element indicates if the i-th input is a member of this machine's language
+	 * @throws InterruptedException if the current thread is interrupted while waiting for the results
+	 * @see #computeAll(String[], ExecutorService)
+	 */
+	public boolean[] computeAll(Collection<String> inputs) throws InterruptedException {
+		return computeAll(inputs.toArray(new String[inputs.size()]));
+	}
+	
+	/** Computes every one of inputs, in the iteration order of the collection, using the threads of executor.
+	 * 
+	 * @param inputs strings whose characters are members of this machine's alphabet
+	 * @param executor the executor that runs the batches
+	 * @return an array whose i-th element indicates if the i-th input is a member of this machine's language
+	 * @throws InterruptedException if the current thread is interrupted while waiting for the results
+	 * @see #computeAll(String[], ExecutorService)
+	 */
+	public boolean[] computeAll(Collection<String> inputs, ExecutorService executor) throws InterruptedException {
+		return computeAll(inputs.toArray(new String[inputs.size()]), executor);
+	}
+	
+	/** Computes every one of inputs, using the threads of executor.
+	 * 
+	 * <p>The inputs are split into a few batches per processor, and every batch is computed by a single task that
+	 * runs the compiled machine directly over every string, so there's no copying or allocation per input.</p>
+	 * 
+	 * @param inputs strings whose characters are members of this machine's alphabet
+	 * @param executor the executor that runs the batches
+	 * @return an array whose i-th element indicates if the i-th input is a member of this machine's language
+	 * @throws InterruptedException if the current thread is interrupted while waiting for the results
+	 */
+	public boolean[] computeAll(String[] inputs, ExecutorService executor) throws InterruptedException {
+		CompiledDFSM machine = compile();
+		
+		boolean[] results = new boolean[inputs.length];
+		
+		int batches = Math.min(inputs.length, 4 * Runtime.getRuntime().availableProcessors());
+		
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for(int b = 0; b < batches; b++) {
+			tasks.add(new BatchCompute(machine, inputs, results, 
+					(int) ((long) inputs.length * b / batches), (int) ((long) inputs.length * (b + 1) / batches)));
+		}
+		
+		for(Future<Void> f : executor.invokeAll(tasks)) {
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				if (e.getCause() instanceof Error)
+					throw (Error) e.getCause();
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		
+		return results;
+	}
+
+	/** Returns true if and only if the characters read from input up to its end belong to this machine's language.
+	 * 
+	 * <p>The input is read in chunks, in constant memory, so it may be arbitrarily long. The reader is not closed.</p>
+	 * 
+	 * @param input a reader
+	 * @return a boolean that indicates if the input is a member of this machine's language or not
+	 * @throws IOException if reading the input fails
+	 */
+	public boolean compute(Reader input) throws IOException {
+		return compile().compute(input);
+	}
+	
+	/** Returns true if and only if the characters decoded from input up to its end belong to this machine's language.
+	 * 
+	 * @param input an input stream
+	 * @param charset the charset with which to decode the input
+	 * @return a boolean that indicates if the input is a member of this machine's language or not
+	 * @throws IOException if reading the input fails
+	 * @see #compute(Reader)
+	 */
+	public boolean compute(InputStream input, Charset charset) throws IOException {
+		return compile().compute(input, charset);
+	}
+	
+	/** Returns true if and only if the characters decoded from input up to its end belong to this machine's language.
+	 * 
+	 * @param input a readable channel in blocking mode
+	 * @param charset the charset with which to decode the input
+	 * @return a boolean that indicates if the input is a member of this machine's language or not
+	 * @throws IOException if reading the input fails
+	 * @see #compute(Reader)
+	 */
+	public boolean compute(ReadableByteChannel input, Charset charset) throws IOException {
+		return compile().compute(input, charset);
+	}
+	
+	/** Returns true if and only if the content of file belongs to this machine's language.
+	 * 
+	 * <p>The file is memory mapped and every byte is read as a single character in the range 0..255 (ISO-8859-1),
+	 * so this is meant for machines over a single-byte alphabet. Files of any size are supported.</p>
+	 * 
+	 * @param file the path of the file to read
+	 * @return a boolean that indicates if the content of the file is a member of this machine's language or not
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public boolean computeMapped(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return compile().computeMapped(channel);
+		} finally {
+			channel.close();
+		}
+	}
+	
+	/** Returns the strings that this machine accepts, up to a given length, in the lexicographical order of its 
+	 * alphabet (shorter strings first, as {@link Alphabet#next(String)} orders them).
+	 * 
+	 * <p>The strings are generated lazily by a search over the transition table that never enters a state from which 
+	 * no accepting state can be reached in the symbols left, rather than by running the machine on every string.</p>
+	 * 
+	 * @param maxLength the length of the longest strings to return
+	 * @return an iterator over the accepted strings of length at most <code>maxLength</code>
+	 * @throws IllegalArgumentException if <code>maxLength</code> is negative
+	 */
+	public Iterator<String> acceptedWords(int maxLength) {
+		return new AcceptedWords(compile(), maxLength);
+	}
+	
+	/** Returns the strings that this machine accepts, up to a given length, as an ordered, lazy stream.
+	 * 
+	 * @param maxLength the length of the longest strings to return
+	 * @return a stream of the accepted strings of length at most <code>maxLength</code>
+	 * @throws IllegalArgumentException if <code>maxLength</code> is negative
+	 * @see #acceptedWords(int)
+	 */
+	public Stream<String> streamAcceptedWords(int maxLength) {
+		Spliterator<String> words = Spliterators.spliteratorUnknownSize(acceptedWords(maxLength), 
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+		return StreamSupport.stream(words, false);
+	}
+	
+	/** Returns the number of strings of every length that this machine accepts.
+	 * 
+	 * <p>The counts are computed by dynamic programming over the transition table, in <code>O(L n k)</code> time for 
+	 * <code>L = maxLength</code>, <code>n</code> states and <code>k</code> symbols, without enumerating any string. 
+	 * On large machines every step runs in parallel on the common fork/join pool.</p>
+	 * 
+	 * @param maxLength the longest length to count
+	 * @return an array whose entry <code>r</code> is the number of accepted strings of length <code>r</code>, for <code>0 &lt;= r &lt;= maxLength</code>
+	 * @throws ArithmeticException if a count does not fit in a long. Use {@link #countAcceptedExact(int)} instead.
+	 * @throws IllegalArgumentException if <code>maxLength</code> is negative
+	 */
+	public long[] countAccepted(int maxLength) {
+		return countAccepted(maxLength, ForkJoinPool.commonPool());
+	}
+	
+	/** Returns the number of strings of every length that this machine accepts, running the passes of large machines 
+	 * on a given pool.
+	 * 
+	 * @param maxLength the longest length to count
+	 * @param pool the pool to run the passes on, or null to run them in the calling thread
+	 * @return an array whose entry <code>r</code> is the number of accepted strings of length <code>r</code>, for <code>0 &lt;= r &lt;= maxLength</code>
+	 * @throws ArithmeticException if a count does not fit in a long
+	 * @throws IllegalArgumentException if <code>maxLength</code> is negative
+	 * @see #countAccepted(int)
+	 */
+	public long[] countAccepted(int maxLength, ForkJoinPool pool) {
+		return new WordCounter(compile()).count(maxLength, pool);
+	}
+	
+	/** Returns the number of strings of every length that this machine accepts, as exact, unbounded integers.
+	 * 
+	 * @param maxLength the longest length to count
+	 * @return an array whose entry <code>r</code> is the number of accepted strings of length <code>r</code>, for <code>0 &lt;= r &lt;= maxLength</code>
+	 * @throws IllegalArgumentException if <code>maxLength</code> is negative
+	 * @see #countAccepted(int)
+	 */
+	public BigInteger[] countAcceptedExact(int maxLength) {
+		return countAcceptedExact(maxLength, ForkJoinPool.commonPool());
+	}
+	
+	/** Returns the number of strings of every length that this machine accepts, as exact, unbounded integers, running 
+	 * the passes of large machines on a given pool.
+	 * 
+	 * @param maxLength the longest length to count
+	 * @param pool the pool to run the passes on, or null to run them in the calling thread
+	 * @return an array whose entry <code>r</code> is the number of accepted strings of length <code>r</code>, for <code>0 &lt;= r &lt;= maxLength</code>
+	 * @throws IllegalArgumentException if <code>maxLength</code> is negative
+	 * @see #countAcceptedExact(int)
+	 */
+	public BigInteger[] countAcceptedExact(int maxLength, ForkJoinPool pool) {
+		return new WordCounter(compile()).countExact(maxLength, pool);
+	}
+	
+	/** Checks whether this machine accepts no string at all.
+	 * 
+	 * @return true if and only if no accepting state is reachable from the initial state
+	 * @see #findAcceptedWord()
+	 */
+	public boolean isEmpty() {
+		return findAcceptedWord() == null;
+	}
+	
+	/** Returns a shortest string that this machine accepts.
+	 * 
+	 * <p>The string is found by the breadth first search that {@link #removeUnreachableStates()} uses, stopped at 
+	 * the first accepting state it reaches.</p>
+	 * 
+	 * @return a shortest accepted string, or null if this machine accepts no string
+	 */
+	public String findAcceptedWord() {
+		CompiledDFSM machine = compile();
+		return machine.shortestWordTo(BitSet.valueOf(machine.acceptingBits()));
+	}
+	
+	/** Checks whether this machine accepts every string over its alphabet.
+	 * 
+	 * @return true if and only if no rejecting state is reachable from the initial state
+	 * @see #findRejectedWord()
+	 */
+	public boolean isUniversal() {
+		return findRejectedWord() == null;
+	}
+	
+	/** Returns a shortest string over the alphabet of this machine that this machine rejects.
+	 * 
+	 * @return a shortest rejected string, or null if this machine accepts every string over its alphabet
+	 * @see #findAcceptedWord()
+	 */
+	public String findRejectedWord() {
+		CompiledDFSM machine = totalize().compile();
+		BitSet rejecting = new BitSet(machine.stateCount());
+		rejecting.set(0, machine.stateCount());
+		rejecting.andNot(BitSet.valueOf(machine.acceptingBits()));
+		return machine.shortestWordTo(rejecting);
+	}
+	
+	/** Checks whether every string that this machine accepts is also accepted by another machine.
+	 * 
+	 * <p>The check searches the product of the two machines breadth first, creating the pairs of states as it 
+	 * reaches them, and stops at the first pair that this machine accepts and <code>other</code> rejects.</p>
+	 * 
+	 * @param other a machine
+	 * @return true if and only if the language of this machine is a subset of the language of <code>other</code>
+	 * @see #findWordNotIn(DFSM)
+	 */
+	public boolean isSubsetOf(DFSM other) {
+		return findWordNotIn(other) == null;
+	}
+	
+	/** Returns a shortest string that this machine accepts and another machine rejects.
+	 * 
+	 * @param other a machine
+	 * @return a shortest string accepted by this machine and rejected by <code>other</code>, or null if there is none
+	 * @see #isSubsetOf(DFSM)
+	 */
+	public String findWordNotIn(DFSM other) {
+		Product product = new Product(compile(), other.compile());
+		int pair = product.explore(Product.Operation.DIFFERENCE);
+		return pair == CompiledDFSM.DEAD ? null : product.word(pair);
+	}
+	
+	/** Returns a machine that accepts the strings that both this machine and another machine accept.
+	 * 
+	 * <p>The machine is built by a product construction that only creates the pairs of states that are reachable 
+	 * from the pair of initial states. Its alphabet is the union of the two alphabets, and its states are new states 
+	 * numbered from 0.</p>
+	 * 
+	 * @param other a machine
+	 * @return a machine for the intersection of the languages of the two machines
+	 */
+	public DFSM intersection(DFSM other) {
+		return product(other, Product.Operation.INTERSECTION);
+	}
+	
+	/** Returns a machine that accepts the strings that this machine or another machine accepts.
+	 * 
+	 * @param other a machine
+	 * @return a machine for the union of the languages of the two machines
+	 * @see #intersection(DFSM)
+	 */
+	public DFSM union(DFSM other) {
+		return product(other, Product.Operation.UNION);
+	}
+	
+	/** Returns a machine that accepts the strings that this machine accepts and another machine does not.
+	 * 
+	 * @param other a machine
+	 * @return a machine for the language of this machine minus the language of <code>other</code>
+	 * @see #intersection(DFSM)
+	 */
+	public DFSM difference(DFSM other) {
+		return product(other, Product.Operation.DIFFERENCE);
+	}
+	
+	/** Returns a machine that accepts the strings that exactly one of this machine and another machine accepts.
+	 * 
+	 * @param other a machine
+	 * @return a machine for the symmetric difference of the languages of the two machines
+	 * @see #intersection(DFSM)
+	 */
+	public DFSM symmetricDifference(DFSM other) {
+		return product(other, Product.Operation.SYMMETRIC_DIFFERENCE);
+	}
+	
+	/** Checks whether this machine accepts exactly the same strings as another machine.
+	 * 
+	 * <p>Unlike comparing the canonic forms of the minimal machines, this check does not minimize either machine. 
+	 * It merges the states of the two machines in a union-find structure, by the algorithm of Hopcroft and Karp, and 
+	 * runs in nearly linear time in the size of the machines. Strings over symbols that only one of the machines 
+	 * has are taken into account: the other machine rejects them.</p>
+	 * 
+	 * @param other a machine
+	 * @return true if and only if the two machines recognize the same language
+	 * @see #findDistinguishingWord(DFSM)
+	 */
+	public boolean equivalentTo(DFSM other) {
+		return new Product(compile(), other.compile()).bisimilar();
+	}
+	
+	/** Returns a shortest string that exactly one of this machine and another machine accepts.
+	 * 
+	 * @param other a machine
+	 * @return a shortest string accepted by one of the machines and rejected by the other, or null if the machines are equivalent
+	 * @see #equivalentTo(DFSM)
+	 */
+	public String findDistinguishingWord(DFSM other) {
+		Product product = new Product(compile(), other.compile());
+		if (product.bisimilar())
+			return null;
+		return product.word(product.explore(Product.Operation.SYMMETRIC_DIFFERENCE));
+	}
+	
+	private DFSM product(DFSM other, Product.Operation operation) {
+		return new DFSM(new Product(compile(), other.compile()).toMachine(operation));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+package ac.il.afeka.fsm;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** A bounded cache of compiled machines, keyed by their string encoding.
+ *
+ * <p>Submitting the same encoding again returns the machine that was built the first time, skipping the parsing,
+ * the verification and the compilation of the machine. When the cache is full, the least recently used machine
+ * is evicted.</p>
+ *
+ * <p>The cache is thread safe. The machines it returns are shared, so they should not be modified (for example,
+ * with {@link DFSM#parse(String)}).</p>
+ */
+public class DFSMCache {
+
+	private final Map<String, DFSM> machines;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates an empty cache.
+	 *
+	 * @param maximumSize the maximal number of machines this cache holds
+	 */
+	public DFSMCache(final int maximumSize) {
+		if (maximumSize <= 0)
+			throw new IllegalArgumentException("The maximum size of a cache must be positive, got " + maximumSize);
+
+		this.machines = new LinkedHashMap<String, DFSM>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, DFSM> eldest) {
+				if (size() <= maximumSize)
+					return false;
+				evictions.incrementAndGet();
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns the compiled machine for an encoding.
+	 *
+	 * <p>On a miss the machine is built outside the cache's lock, so a slow parse does not block other threads.
+	 * Two threads that miss on the same encoding at the same time may both build it.</p>
+	 *
+	 * @param encoding the string representation of a DFSM
+	 * @return a compiled machine for <code>encoding</code>
+	 * @throws Exception if the encoding is incorrect or if it does not represent a deterministic machine
+	 */
+	public DFSM get(String encoding) throws Exception {
+		DFSM machine;
+		synchronized (machines) {
+			machine = machines.get(encoding);
+		}
+
+		if (machine != null) {
+			hits.incrementAndGet();
+			return machine;
+		}
+
+		misses.incrementAndGet();
+
+		machine = new DFSM(encoding);
+		machine.compile();
+
+		synchronized (machines) {
+			DFSM other = machines.get(encoding);
+			if (other != null)
+				return other;
+			machines.put(encoding, machine);
+		}
+
+		return machine;
+	}
+
+	/**
+	 *
+	 * @return the number of machines in this cache
+	 */
+	public int size() {
+		synchronized (machines) {
+			return machines.size();
+		}
+	}
+
+	/** Removes all the machines from this cache. The statistics are not reset. */
+	public void clear() {
+		synchronized (machines) {
+			machines.clear();
+		}
+	}
+
+	/**
+	 *
+	 * @return the number of calls to <code>get</code> that found their machine in this cache
+	 */
+	public long hits() {
+		return hits.get();
+	}
+
+	/**
+	 *
+	 * @return the number of calls to <code>get</code> that had to build their machine
+	 */
+	public long misses() {
+		return misses.get();
+	}
+
+	/**
+	 *
+	 * @return the number of machines that were evicted from this cache to make room for others
+	 */
+	public long evictions() {
+		return evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return "DFSMCache[size=" + size() + ", hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions() + "]";
+	}
+}
@@ -0,0 +1,265 @@
+package ac.il.afeka.fsm;
+import java.util.Arrays;
+
+/** A single pass parser for the string encoding of a DFSM.
+ *
+ * <p>The parser walks the encoding once with an index, without regular expressions or intermediate strings,
+ * and collects the states, the symbols and the transitions into primitive arrays. It accepts the grammar that
+ * is described in {@link DFSM#parse(String)}: fields are separated by <code>/</code>, the elements of a list by
+ * whitespace, transitions by <code>;</code> and the components of a transition by <code>,</code>, and whitespace
+ * around the separators is ignored.</p>
+ *
+ * <p>Errors are reported with an <code>IllegalArgumentException</code> that gives the index at which parsing failed.</p>
+ */
+final class EncodingParser {
+
+	/** The ids of the states, in the order of the encoding. */
+	int[] stateIds;
+
+	/** The symbols of the alphabet, in the order of the encoding. */
+	char[] symbols;
+
+	/** The number of transitions. */
+	int transitionCount;
+
+	/** The transitions: the i-th transition moves from <code>fromStateIds[i]</code> on
+	 * <code>transitionSymbols[i]</code> to <code>toStateIds[i]</code>. */
+	int[] fromStateIds;
+
+	char[] transitionSymbols;
+
+	int[] toStateIds;
+
+	int initialStateId;
+
+	int[] acceptingStateIds;
+
+	private final String text;
+
+	private int position;
+
+	private EncodingParser(String text) {
+		this.text = text;
+		this.position = 0;
+	}
+
+	/** Parses the encoding of a whole machine.
+	 *
+	 * @param encoding the string encoding of a DFSM
+	 * @return a parser that holds the components of the machine
+	 */
+	static EncodingParser parseMachine(String encoding) {
+		EncodingParser p = new EncodingParser(encoding);
+
+		int end = p.fieldEnd();
+		p.stateIds = p.integers(end);
+		p.nextField(end, "alphabet");
+
+		end = p.fieldEnd();
+		p.symbols = p.symbols(end);
+		p.nextField(end, "transitions");
+
+		end = p.fieldEnd();
+		p.transitions(end);
+		p.nextField(end, "initial state");
+
+		end = p.fieldEnd();
+		p.skipWhitespace(end);
+		p.initialStateId = p.integer(end);
+		p.skipWhitespace(end);
+		p.expectEnd(end);
+
+		// the accepting states are optional, and anything after them is ignored
+
+		if (end < encoding.length()) {
+			p.position = end + 1;
+			p.acceptingStateIds = p.integers(p.fieldEnd());
+		} else
+			p.acceptingStateIds = new int[0];
+
+		return p;
+	}
+
+	/** Parses a whitespace separated list of integers.
+	 *
+	 * @param encoding a list of integers
+	 * @return the integers in the order of the list
+	 */
+	static int[] parseIntegers(String encoding) {
+		return new EncodingParser(encoding).integers(encoding.length());
+	}
+
+	/** Parses a whitespace separated list of symbols. Only the first character of every element is used.
+	 *
+	 * @param encoding a list of symbols
+	 * @return the symbols in the order of the list
+	 */
+	static char[] parseSymbols(String encoding) {
+		return new EncodingParser(encoding).symbols(encoding.length());
+	}
+
+	/** Parses a <code>;</code> separated list of transitions.
+	 *
+	 * @param encoding a list of transitions
+	 * @return a parser that holds the transitions
+	 */
+	static EncodingParser parseTransitions(String encoding) {
+		EncodingParser p = new EncodingParser(encoding);
+		p.transitions(encoding.length());
+		return p;
+	}
+
+	// returns the index of the separator at the end of the current field (or the end of the text)
+
+	private int fieldEnd() {
+		int end = text.indexOf('/', position);
+		return end < 0 ? text.length() : end;
+	}
+
+	private void nextField(int end, String name) {
+		if (end >= text.length())
+			throw error("missing " + name);
+		position = end + 1;
+	}
+
+	private int[] integers(int end) {
+		int[] values = new int[8];
+		int count = 0;
+		while(true) {
+			skipWhitespace(end);
+			if (position >= end)
+				break;
+			if (count == values.length)
+				values = Arrays.copyOf(values, 2 * count);
+			values[count++] = integer(end);
+			if (position < end && !Character.isWhitespace(text.charAt(position)))
+				throw error("expected whitespace");
+		}
+		return Arrays.copyOf(values, count);
+	}
+
+	private char[] symbols(int end) {
+		char[] values = new char[8];
+		int count = 0;
+		while(true) {
+			skipWhitespace(end);
+			if (position >= end)
+				break;
+			if (count == values.length)
+				values = Arrays.copyOf(values, 2 * count);
+			values[count++] = text.charAt(position);
+			while(position < end && !Character.isWhitespace(text.charAt(position)))
+				position++;
+		}
+		return Arrays.copyOf(values, count);
+	}
+
+	private void transitions(int end) {
+		int capacity = 16;
+		fromStateIds = new int[capacity];
+		transitionSymbols = new char[capacity];
+		toStateIds = new int[capacity];
+		transitionCount = 0;
+
+		while(true) {
+			skipWhitespace(end);
+			if (position >= end)
+				break;
+
+			int tupleEnd = text.indexOf(';', position);
+			if (tupleEnd < 0 || tupleEnd > end)
+				tupleEnd = end;
+
+			if (transitionCount == capacity) {
+				capacity *= 2;
+				fromStateIds = Arrays.copyOf(fromStateIds, capacity);
+				transitionSymbols = Arrays.copyOf(transitionSymbols, capacity);
+				toStateIds = Arrays.copyOf(toStateIds, capacity);
+			}
+
+			transition(tupleEnd);
+			transitionCount++;
+
+			position = tupleEnd < end ? tupleEnd + 1 : end;
+		}
+	}
+
+	// <from> , <symbol or nothing> , <to>
+
+	private void transition(int end) {
+		fromStateIds[transitionCount] = integer(end);
+		skipWhitespace(end);
+		expect(',', end);
+		skipWhitespace(end);
+
+		if (position < end && text.charAt(position) != ',') {
+			transitionSymbols[transitionCount] = text.charAt(position);
+			while(position < end && text.charAt(position) != ',')
+				position++;
+		} else
+			transitionSymbols[transitionCount] = Alphabet.EPSILON;
+
+		expect(',', end);
+		skipWhitespace(end);
+		toStateIds[transitionCount] = integer(end);
+		skipWhitespace(end);
+
+		// anything after another comma is ignored
+
+		if (position < end)
+			expect(',', end);
+	}
+
+	private int integer(int end) {
+		int start = position;
+		boolean negative = false;
+		if (position < end && (text.charAt(position) == '-' || text.charAt(position) == '+')) {
+			negative = text.charAt(position) == '-';
+			position++;
+		}
+
+		long value = 0;
+		int digits = 0;
+		while(position < end && text.charAt(position) >= '0' && text.charAt(position) <= '9') {
+			value = 10 * value + (text.charAt(position) - '0');
+			if (value > (long) Integer.MAX_VALUE + 1) {
+				position = start;
+				throw error("integer out of range");
+			}
+			position++;
+			digits++;
+		}
+
+		if (digits == 0) {
+			position = start;
+			throw error("expected an integer");
+		}
+
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE) {
+			position = start;
+			throw error("integer out of range");
+		}
+		return (int) value;
+	}
+
+	private void skipWhitespace(int end) {
+		while(position < end && Character.isWhitespace(text.charAt(position)))
+			position++;
+	}
+
+	private void expect(char c, int end) {
+		if (position >= end || text.charAt(position) != c)
+			throw error("expected '" + c + "'");
+		position++;
+	}
+
+	private void expectEnd(int end) {
+		if (position < end)
+			throw error("unexpected character '" + text.charAt(position) + "'");
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException("Invalid encoding at index " + position + ": " + message);
+	}
+}
@@ -0,0 +1,225 @@
+package ac.il.afeka.fsm;
+
+/** Hopcroft's partition refinement algorithm for computing the equivalence classes of the states of a DFSM.
+ *
+ * <p>The partition is kept in a single array of state indices in which every block occupies a contiguous range.
+ * Splitting a block only moves states inside its own range, and a splitter worklist ensures that each state takes
+ * part in at most <code>log n</code> splits per symbol, so the running time is <code>O(n k log n)</code>.</p>
+ *
+ * <p>Symbols of the same class always split the same blocks, so the algorithm runs over the symbol classes of
+ * the machine and <code>k</code> is their number.</p>
+ *
+ * <p>If some transitions of the machine are missing, they lead to a sink state that is added to the partition as
+ * state <code>n - 1</code>. Without it a block could not be split by the states that lead nowhere, and states with
+ * different missing transitions could be merged.</p>
+ */
+final class Hopcroft {
+
+	private final CompiledDFSM machine;
+
+	// the number of states, including the sink
+
+	private final int n;
+
+	// the sink state, or DEAD if the machine is total
+
+	private final int sink;
+
+	// the number of symbol classes
+
+	private final int k;
+
+	// inverse transitions: the predecessors of state t on symbol c are
+	// sources[inverseStart[c * n + t] .. inverseStart[c * n + t + 1])
+
+	private int[] inverseStart;
+
+	private int[] sources;
+
+	// the partition
+
+	private final int[] elements;
+
+	private final int[] location;
+
+	private final int[] blockOf;
+
+	private final int[] blockStart;
+
+	private final int[] blockEnd;
+
+	private final int[] marked;
+
+	private int blocks;
+
+	// the splitter worklist
+
+	private final int[] worklist;
+
+	private final boolean[] inWorklist;
+
+	private int pending;
+
+	private Hopcroft(CompiledDFSM machine) {
+		this.machine = machine;
+		this.sink = machine.isTotal() ? CompiledDFSM.DEAD : machine.stateCount();
+		this.n = machine.stateCount() + (machine.isTotal() ? 0 : 1);
+		this.k = machine.classCount();
+
+		this.elements = new int[n];
+		this.location = new int[n];
+		this.blockOf = new int[n];
+		this.blockStart = new int[n + 1];
+		this.blockEnd = new int[n + 1];
+		this.marked = new int[n + 1];
+		this.worklist = new int[n + 1];
+		this.inWorklist = new boolean[n + 1];
+	}
+
+	/** Computes the equivalence classes of the states of <code>machine</code>.
+	 *
+	 * @param machine a compiled machine
+	 * @return an array that maps the index of every state to the number of its equivalence class. If the machine is not
+	 * total, its last entry is the class of the states from which no accepting state can be reached.
+	 */
+	static int[] partition(CompiledDFSM machine) {
+		Hopcroft h = new Hopcroft(machine);
+		h.buildInverse();
+		h.initialPartition();
+		h.refine();
+		return h.blockOf;
+	}
+
+	private void buildInverse() {
+		inverseStart = new int[k * n + 1];
+		for(int s = 0; s < n; s++)
+			for(int c = 0; c < k; c++)
+				inverseStart[c * n + next(s, c) + 1]++;
+
+		for(int i = 0; i < k * n; i++)
+			inverseStart[i + 1] += inverseStart[i];
+
+		sources = new int[inverseStart[k * n]];
+		int[] fill = new int[k * n];
+		for(int s = 0; s < n; s++)
+			for(int c = 0; c < k; c++) {
+				int t = next(s, c);
+				sources[inverseStart[c * n + t] + fill[c * n + t]++] = s;
+			}
+	}
+
+	private int next(int s, int c) {
+		if (s == sink)
+			return sink;
+		int t = machine.nextOnClass(s, c);
+		return t == CompiledDFSM.DEAD ? sink : t;
+	}
+
+	// First we create two blocks, put all the accepting states in the first
+	// and all the non accepting states in the second.
+
+	private void initialPartition() {
+		int front = 0, back = n;
+		for(int s = 0; s < n; s++) {
+			int p = s != sink && machine.isAccepting(s) ? front++ : --back;
+			elements[p] = s;
+			location[s] = p;
+		}
+
+		if (front > 0)
+			newBlock(0, front);
+		if (back < n)
+			newBlock(back, n);
+		for(int b = 0; b < blocks; b++)
+			for(int p = blockStart[b]; p < blockEnd[b]; p++)
+				blockOf[elements[p]] = b;
+
+		// one of the two blocks is enough as a splitter: splitting by the other one gives the same result
+
+		if (blocks == 2)
+			push(blockEnd[0] - blockStart[0] <= blockEnd[1] - blockStart[1] ? 0 : 1);
+	}
+
+	private void refine() {
+		int[] splitter = new int[n];
+		int[] touched = new int[n];
+
+		while(pending > 0) {
+			int a = worklist[--pending];
+			inWorklist[a] = false;
+
+			// block a may be split while we process it, so we work on a copy of its members
+
+			int size = blockEnd[a] - blockStart[a];
+			System.arraycopy(elements, blockStart[a], splitter, 0, size);
+
+			for(int c = 0; c < k; c++) {
+				int touchedCount = 0;
+
+				for(int i = 0; i < size; i++) {
+					int t = splitter[i];
+					for(int j = inverseStart[c * n + t]; j < inverseStart[c * n + t + 1]; j++) {
+						int s = sources[j];
+						int b = blockOf[s];
+						if (marked[b] == 0)
+							touched[touchedCount++] = b;
+						mark(s, b);
+					}
+				}
+
+				for(int i = 0; i < touchedCount; i++)
+					split(touched[i]);
+			}
+		}
+	}
+
+	// moves s into the marked prefix of its block
+
+	private void mark(int s, int b) {
+		int p = location[s];
+		int q = blockStart[b] + marked[b];
+		if (p < q)
+			return;
+
+		int other = elements[q];
+		elements[q] = s;
+		location[s] = q;
+		elements[p] = other;
+		location[other] = p;
+		marked[b]++;
+	}
+
+	// splits the marked prefix of block b into a new block
+
+	private void split(int b) {
+		int start = blockStart[b];
+		int middle = start + marked[b];
+		marked[b] = 0;
+
+		if (middle == blockEnd[b])
+			return;
+
+		int newBlock = newBlock(start, middle);
+		blockStart[b] = middle;
+		for(int p = start; p < middle; p++)
+			blockOf[elements[p]] = newBlock;
+
+		if (inWorklist[b] || middle - start <= blockEnd[b] - middle)
+			push(newBlock);
+		else
+			push(b);
+	}
+
+	private int newBlock(int start, int end) {
+		blockStart[blocks] = start;
+		blockEnd[blocks] = end;
+		return blocks++;
+	}
+
+	private void push(int b) {
+		if (!inWorklist[b]) {
+			inWorklist[b] = true;
+			worklist[pending++] = b;
+		}
+	}
+}
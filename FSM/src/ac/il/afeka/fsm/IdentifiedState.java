@@ -1,31 +1,67 @@
 package ac.il.afeka.fsm;
 import java.io.PrintStream;
 import java.util.HashSet;
-import java.util.Scanner;
 import java.util.Set;
 
+/** A state that is identified by an integer.
+ *
+ * <p>{@link #valueOf(int)} returns one shared instance for every id in a small range, the way
+ * {@link Integer#valueOf(int)} does, so that maps and sets of states of most machines find their states by
+ * reference. The shared instances are created once, and other ids get a new instance on every call. All the
+ * instances with the same id are equal.</p>
+ */
 public class IdentifiedState extends State {
 
-	private Integer id;
+	// the range of ids that have a shared instance
+
+	private static final int LOW = -128;
+
+	private static final int HIGH = 4095;
+
+	private static final IdentifiedState[] shared = new IdentifiedState[HIGH - LOW + 1];
+
+	static {
+		for(int i = 0; i < shared.length; i++)
+			shared[i] = new IdentifiedState(LOW + i);
+	}
+
+	private final int id;
 
 	public IdentifiedState(Integer i) {
 		this.id = i;
 	}
 
+	private IdentifiedState(int id) {
+		this.id = id;
+	}
+
+	/**
+	 * Returns a state with the given id.
+	 *
+	 * @param id an id
+	 * @return the state whose id is <code>id</code>. Calls with the same id between -128 and 4095 return the same instance.
+	 */
+	public static IdentifiedState valueOf(int id) {
+		if (id >= LOW && id <= HIGH)
+			return shared[id - LOW];
+		return new IdentifiedState(id);
+	}
+
 	static public Set<Integer> parseStateIdList(String encoding) {
-		Scanner scanner = new Scanner(encoding);
 		
 		Set<Integer> ids = new HashSet<Integer>();
 		
-		while(scanner.hasNext()) {
-			ids.add(scanner.nextInt());
+		for(int id : EncodingParser.parseIntegers(encoding)) {
+			ids.add(id);
 		}
 		
-		scanner.close();
-		
 		return ids;
 	}
 
+	int id() {
+		return id;
+	}
+
 	public void prettyPrint(PrintStream out) {
 		out.print(id);
 	}
@@ -41,30 +77,20 @@ public class IdentifiedState extends State {
 	
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((id == null) ? 0 : id.hashCode());
-		return result;
+		return 31 + id;
 	}
 
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
-			return false;
-		IdentifiedState other = (IdentifiedState) obj;
-		if (id == null) {
-			if (other.id != null)
-				return false;
-		} else if (!id.equals(other.id))
+		if (!(obj instanceof IdentifiedState))
 			return false;
-		return true;
+		return id == ((IdentifiedState) obj).id;
 	}
 
 	public int compareTo(State other) {
-		return id.compareTo(((IdentifiedState)other).id);
+		int otherId = ((IdentifiedState) other).id;
+		return id < otherId ? -1 : (id == otherId ? 0 : 1);
 	}
 }
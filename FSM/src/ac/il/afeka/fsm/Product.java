@@ -0,0 +1,338 @@
+package ac.il.afeka.fsm;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/** The product of two compiled machines, explored on demand.
+ *
+ * <p>A state of the product is a pair of states, one from each machine, and the product moves on a symbol by
+ * moving both machines on it. The alphabet of the product is the union of the two alphabets: on a symbol that a
+ * machine does not have (or on a transition that it is missing) that machine moves to an implicit sink that never
+ * accepts and never leaves.</p>
+ *
+ * <p>Only the pairs that are reachable from the pair of initial states are created. They are discovered breadth
+ * first from a worklist and numbered in the order of their discovery, and a primitive open addressing table maps a
+ * pair to its number. The search can stop at the first pair that satisfies a condition, and since the pairs are
+ * discovered breadth first, {@link #word(int)} then gives a shortest string that leads to it.</p>
+ */
+final class Product {
+
+	/** A way to combine the acceptance of the two machines. */
+	enum Operation {
+
+		INTERSECTION {
+			@Override
+			boolean accepts(boolean first, boolean second) {
+				return first && second;
+			}
+		},
+
+		UNION {
+			@Override
+			boolean accepts(boolean first, boolean second) {
+				return first || second;
+			}
+		},
+
+		DIFFERENCE {
+			@Override
+			boolean accepts(boolean first, boolean second) {
+				return first && !second;
+			}
+		},
+
+		SYMMETRIC_DIFFERENCE {
+			@Override
+			boolean accepts(boolean first, boolean second) {
+				return first != second;
+			}
+		};
+
+		abstract boolean accepts(boolean first, boolean second);
+	}
+
+	private final CompiledDFSM first;
+
+	private final CompiledDFSM second;
+
+	// the alphabet of the product, and the index of every one of its symbols in each machine (DEAD if it has none)
+
+	private final char[] symbols;
+
+	private final int[] firstSymbol;
+
+	private final int[] secondSymbol;
+
+	// the sinks are numbered after the states of their machine
+
+	private final int firstSink;
+
+	private final int secondSink;
+
+	// the discovered pairs: pair p is (firstOf[p], secondOf[p]), it was reached from parent[p] on symbols[via[p]],
+	// and its successor on symbol c is delta[p * k + c] once p has been expanded
+
+	private int[] firstOf;
+
+	private int[] secondOf;
+
+	private int[] parent;
+
+	private int[] via;
+
+	private int[] delta;
+
+	private int count;
+
+	private int expanded;
+
+	// the open addressing table of the pairs: key 0 marks an empty slot, so the keys are shifted by one
+
+	private long[] keys;
+
+	private int[] values;
+
+	Product(CompiledDFSM first, CompiledDFSM second) {
+		this.first = first;
+		this.second = second;
+
+		Set<Character> union = new LinkedHashSet<Character>();
+		for(int c = 0; c < first.symbolCount(); c++)
+			union.add(first.symbol(c));
+		for(int c = 0; c < second.symbolCount(); c++)
+			union.add(second.symbol(c));
+
+		int k = union.size();
+		this.symbols = new char[k];
+		this.firstSymbol = new int[k];
+		this.secondSymbol = new int[k];
+		int i = 0;
+		for(char symbol : union) {
+			symbols[i] = symbol;
+			firstSymbol[i] = first.symbolIndex(symbol);
+			secondSymbol[i] = second.symbolIndex(symbol);
+			i++;
+		}
+
+		this.firstSink = first.stateCount();
+		this.secondSink = second.stateCount();
+
+		int capacity = 16;
+		this.firstOf = new int[capacity];
+		this.secondOf = new int[capacity];
+		this.parent = new int[capacity];
+		this.via = new int[capacity];
+		this.delta = new int[capacity * Math.max(k, 1)];
+		this.keys = new long[2 * capacity];
+		this.values = new int[2 * capacity];
+
+		int a = first.initialState(), b = second.initialState();
+		add(a == CompiledDFSM.DEAD ? firstSink : a, b == CompiledDFSM.DEAD ? secondSink : b, CompiledDFSM.DEAD, CompiledDFSM.DEAD);
+	}
+
+	/** Discovers the reachable pairs until one of them is accepted by <code>operation</code>.
+	 *
+	 * @param operation the condition to stop at, or null to discover all the reachable pairs
+	 * @return the number of the first pair accepted by <code>operation</code>, or <code>DEAD</code> if there is none
+	 */
+	int explore(Operation operation) {
+		int checked = 0;
+		while(true) {
+			if (operation != null)
+				for(; checked < count; checked++)
+					if (accepts(operation, checked))
+						return checked;
+
+			if (expanded == count)
+				return CompiledDFSM.DEAD;
+
+			expand(expanded++);
+		}
+	}
+
+	/** Builds the product machine. The states are the reachable pairs, numbered in the order of their discovery.
+	 *
+	 * @param operation how the product accepts
+	 * @return the product machine
+	 */
+	CompiledDFSM toMachine(Operation operation) {
+		explore(null);
+
+		int k = symbols.length;
+
+		State[] states = new State[count];
+		for(int p = 0; p < count; p++)
+			states[p] = IdentifiedState.valueOf(p);
+
+		long[] accepting = new long[(count + 63) >>> 6];
+		for(int p = 0; p < count; p++)
+			if (accepts(operation, p))
+				accepting[p >>> 6] |= 1L << p;
+
+		return new CompiledDFSM(states, symbols.clone(), Arrays.copyOf(delta, count * k), 0, accepting);
+	}
+
+	/** Decides whether the two machines accept the same language, by the algorithm of Hopcroft and Karp.
+	 * 
+	 * <p>Rather than discovering pairs, the states of both machines (and their sinks) are merged in a union-find 
+	 * structure: merging the initial states, and then the successors of every two merged states, on every symbol, 
+	 * either finds two merged states that disagree on acceptance, or ends with a bisimulation between the machines. 
+	 * Every merge lowers the number of classes, so there are at most as many merges as states, and the time is 
+	 * nearly linear in the size of the two machines.</p>
+	 * 
+	 * @return true if and only if the two machines accept the same strings
+	 */
+	boolean bisimilar() {
+		int k = symbols.length;
+		int offset = firstSink + 1;
+
+		int[] classes = new int[offset + secondSink + 1];
+		for(int i = 0; i < classes.length; i++)
+			classes[i] = i;
+
+		// the merged pairs whose successors have not been merged yet
+
+		int[] pending = new int[2 * Math.min(classes.length, 64)];
+		int top = 0;
+
+		int a = first.initialState(), b = second.initialState();
+		a = a == CompiledDFSM.DEAD ? firstSink : a;
+		b = b == CompiledDFSM.DEAD ? secondSink : b;
+		classes[offset + b] = a;
+		pending[top++] = a;
+		pending[top++] = b;
+
+		while(top > 0) {
+			b = pending[--top];
+			a = pending[--top];
+
+			if (first.isAccepting(a == firstSink ? CompiledDFSM.DEAD : a) != second.isAccepting(b == secondSink ? CompiledDFSM.DEAD : b))
+				return false;
+
+			for(int c = 0; c < k; c++) {
+				int nextA = move(first, a, firstSink, firstSymbol[c]);
+				int nextB = move(second, b, secondSink, secondSymbol[c]);
+
+				int classA = find(classes, nextA), classB = find(classes, offset + nextB);
+				if (classA == classB)
+					continue;
+				classes[classB] = classA;
+
+				if (top == pending.length)
+					pending = Arrays.copyOf(pending, 2 * pending.length);
+				pending[top++] = nextA;
+				pending[top++] = nextB;
+			}
+		}
+		return true;
+	}
+
+	private static int find(int[] classes, int i) {
+		while(classes[i] != i) {
+			classes[i] = classes[classes[i]];
+			i = classes[i];
+		}
+		return i;
+	}
+
+	/** Returns a shortest string that leads to a discovered pair.
+	 *
+	 * @param pair the number of a pair
+	 * @return the string of symbols on the path through which the pair was discovered
+	 */
+	String word(int pair) {
+		int length = 0;
+		for(int p = pair; parent[p] != CompiledDFSM.DEAD; p = parent[p])
+			length++;
+
+		char[] word = new char[length];
+		for(int p = pair; parent[p] != CompiledDFSM.DEAD; p = parent[p])
+			word[--length] = symbols[via[p]];
+		return new String(word);
+	}
+
+	private boolean accepts(Operation operation, int pair) {
+		return operation.accepts(first.isAccepting(firstOf[pair] == firstSink ? CompiledDFSM.DEAD : firstOf[pair]),
+				second.isAccepting(secondOf[pair] == secondSink ? CompiledDFSM.DEAD : secondOf[pair]));
+	}
+
+	private void expand(int pair) {
+		int k = symbols.length;
+		int a = firstOf[pair], b = secondOf[pair];
+		for(int c = 0; c < k; c++) {
+			int nextA = move(first, a, firstSink, firstSymbol[c]);
+			int nextB = move(second, b, secondSink, secondSymbol[c]);
+			int target = find(nextA, nextB);
+			if (target == CompiledDFSM.DEAD)
+				target = add(nextA, nextB, pair, c);
+			delta[pair * k + c] = target;
+		}
+	}
+
+	private static int move(CompiledDFSM machine, int state, int sink, int symbol) {
+		if (state == sink || symbol == CompiledDFSM.DEAD)
+			return sink;
+		int next = machine.next(state, symbol);
+		return next == CompiledDFSM.DEAD ? sink : next;
+	}
+
+	private long key(int a, int b) {
+		return (long) a * (secondSink + 1) + b + 1;
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & (keys.length - 1);
+	}
+
+	private int find(int a, int b) {
+		long key = key(a, b);
+		for(int i = slot(key); keys[i] != 0; i = (i + 1) & (keys.length - 1))
+			if (keys[i] == key)
+				return values[i];
+		return CompiledDFSM.DEAD;
+	}
+
+	private int add(int a, int b, int from, int symbol) {
+		if (count == firstOf.length)
+			grow();
+
+		int pair = count++;
+		firstOf[pair] = a;
+		secondOf[pair] = b;
+		parent[pair] = from;
+		via[pair] = symbol;
+
+		if (2 * count > keys.length)
+			rehash();
+		insert(key(a, b), pair);
+		return pair;
+	}
+
+	private void insert(long key, int pair) {
+		int i = slot(key);
+		while(keys[i] != 0)
+			i = (i + 1) & (keys.length - 1);
+		keys[i] = key;
+		values[i] = pair;
+	}
+
+	private void grow() {
+		int capacity = 2 * firstOf.length;
+		firstOf = Arrays.copyOf(firstOf, capacity);
+		secondOf = Arrays.copyOf(secondOf, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+		via = Arrays.copyOf(via, capacity);
+		delta = Arrays.copyOf(delta, capacity * Math.max(symbols.length, 1));
+	}
+
+	private void rehash() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[2 * oldKeys.length];
+		values = new int[2 * oldKeys.length];
+		for(int i = 0; i < oldKeys.length; i++)
+			if (oldKeys[i] != 0)
+				insert(oldKeys[i], oldValues[i]);
+	}
+}
@@ -0,0 +1,154 @@
+package ac.il.afeka.fsm;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/** Runs a compiled machine over a long input in parallel.
+ *
+ * <p>The input is split into chunks. Each chunk is run from every state of the machine at once, which gives a
+ * mapping from the state the machine is in at the beginning of the chunk to the state it is in at its end. The
+ * mappings of adjacent chunks are composed in a fork/join fashion, and the mapping of the whole input is applied
+ * to the initial state.</p>
+ *
+ * <p>Runs from different states tend to converge into the same state after a few symbols, so the runs of a chunk
+ * are periodically merged and the chunk is only scanned once for every distinct state that is still active.
+ * Runs that enter an absorbing state are not scanned any further.</p>
+ */
+final class SpeculativeRun extends RecursiveTask<int[]> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The length of the chunks that are run sequentially. */
+	static final int CHUNK_SIZE = 1 << 16;
+
+	// the number of symbols between two merges of converging runs
+
+	private static final int MERGE_INTERVAL = 64;
+
+	private final CompiledDFSM machine;
+
+	private final CharSequence input;
+
+	private final int start;
+
+	private final int end;
+
+	SpeculativeRun(CompiledDFSM machine, CharSequence input, int start, int end) {
+		this.machine = machine;
+		this.input = input;
+		this.start = start;
+		this.end = end;
+	}
+
+	@Override
+	protected int[] compute() {
+		if (end - start <= CHUNK_SIZE)
+			return runChunk();
+
+		int middle = (start + end) >>> 1;
+		SpeculativeRun left = new SpeculativeRun(machine, input, start, middle);
+		SpeculativeRun right = new SpeculativeRun(machine, input, middle, end);
+		left.fork();
+		int[] second = right.compute();
+		int[] first = left.join();
+
+		// compose: first apply the mapping of the left half, then the mapping of the right half
+
+		for(int s = 0; s < first.length; s++)
+			if (first[s] != CompiledDFSM.DEAD)
+				first[s] = second[first[s]];
+		return first;
+	}
+
+	// returns the mapping of this chunk: the state in which a run that starts in state s ends
+
+	private int[] runChunk() {
+		int n = machine.stateCount();
+
+		// every run is identified by the state it started in. When two runs meet in the same state, one of them
+		// stops and points to the other one, so the runs form a forest whose roots are the runs that are still active.
+
+		int[] parent = new int[n];
+		int[] current = new int[n];
+		int[] active = new int[n];
+		for(int s = 0; s < n; s++) {
+			parent[s] = s;
+			current[s] = s;
+			active[s] = s;
+		}
+		int runs = n;
+
+		int[] owner = new int[n];
+		int[] stamp = new int[n];
+		int round = 0;
+
+		int from = start;
+		for(; from < end && runs > 0; from += MERGE_INTERVAL) {
+			int to = Math.min(end, from + MERGE_INTERVAL);
+			for(int i = from; i < to; i++) {
+				int symbol = machine.classOf(input.charAt(i));
+
+				// every run reads every symbol of the chunk, so a symbol that is not in the alphabet kills them all,
+				// including the runs that stopped in an absorbing state
+
+				if (symbol == CompiledDFSM.DEAD)
+					return dead(n);
+
+				for(int r = 0; r < runs; r++) {
+					int run = active[r];
+					if (current[run] != CompiledDFSM.DEAD)
+						current[run] = machine.nextOnClass(current[run], symbol);
+				}
+			}
+
+			// merge runs that are in the same state, and drop runs that died or that cannot leave their state
+
+			round++;
+			int merged = 0;
+			for(int r = 0; r < runs; r++) {
+				int run = active[r];
+				int state = current[run];
+				if (state == CompiledDFSM.DEAD || machine.isAbsorbing(state))
+					continue;
+				if (stamp[state] == round) {
+					parent[run] = owner[state];
+				} else {
+					stamp[state] = round;
+					owner[state] = run;
+					active[merged++] = run;
+				}
+			}
+			runs = merged;
+		}
+
+		// the runs that are left cannot leave their states, except on a symbol that is not in the alphabet
+
+		for(int i = from; i < end; i++)
+			if (machine.classOf(input.charAt(i)) == CompiledDFSM.DEAD)
+				return dead(n);
+
+		int[] mapping = new int[n];
+		for(int s = 0; s < n; s++)
+			mapping[s] = current[find(parent, s)];
+		return mapping;
+	}
+
+	// the mapping of a chunk that no run survives
+
+	private static int[] dead(int n) {
+		int[] mapping = new int[n];
+		Arrays.fill(mapping, CompiledDFSM.DEAD);
+		return mapping;
+	}
+
+	private static int find(int[] parent, int run) {
+		int root = run;
+		while(parent[root] != root)
+			root = parent[root];
+		while(parent[run] != root) {
+			int next = parent[run];
+			parent[run] = root;
+			run = next;
+		}
+		return root;
+	}
+}
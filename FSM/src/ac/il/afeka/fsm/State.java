@@ -1,4 +1,5 @@
 package ac.il.afeka.fsm;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -34,7 +35,24 @@ public abstract class State implements Comparable<State> {
 	}
 	
 	public static String encodeStateSet(Set<State> states) {
-		String encoding = "";
+		StringBuilder encoding = new StringBuilder();
+		
+		try {
+			encodeStateSet(states, encoding);
+		} catch (IOException e) {
+			throw new AssertionError(e); // a StringBuilder does not throw
+		}
+		
+		return encoding.toString();
+	}
+	
+	/** Appends the encoding of a set of states, in their natural order and separated by spaces.
+	 * 
+	 * @param states	a set of states
+	 * @param out		where to append the encoding
+	 * @throws IOException if <code>out</code> throws
+	 */
+	public static void encodeStateSet(Set<State> states, Appendable out) throws IOException {
 		
 		List<State> statesList = new ArrayList<State>(states);
 		Collections.sort(statesList);
@@ -42,14 +60,12 @@ public abstract class State implements Comparable<State> {
 		Iterator<State> p = statesList.iterator();
 
 		if (p.hasNext()) {
-			encoding = encoding + p.next().encode();
+			out.append(p.next().encode());
 		}
 		
 		while(p.hasNext()) {
-			encoding = encoding + " " + p.next().encode();
+			out.append(' ').append(p.next().encode());
 		}
-		
-		return encoding;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+package ac.il.afeka.fsm;
+import java.util.Arrays;
+
+/** Partitions the symbols of a machine into classes of symbols that behave the same.
+ *
+ * <p>Two symbols are in the same class if and only if every state moves to the same state on both of them,
+ * that is, if their columns in the transition table are equal. A run of the machine only needs the class of
+ * every input symbol, so a table with one column per class is enough. On machines with large alphabets where
+ * most symbols are treated alike (for example, a lexer that only cares about digits, letters and the rest),
+ * the classes are far fewer than the symbols.</p>
+ *
+ * <p>The classes are found by refining a partition of the symbols one row of the table at a time, in place:
+ * every class whose symbols lead to different states from the current state is split by sorting its symbols
+ * by these states. No column is copied, so the only memory used besides the table is a few arrays of
+ * <code>k</code> entries, and a class is only sorted in the rows where it splits.</p>
+ */
+final class SymbolClasses {
+
+	private SymbolClasses() {
+	}
+
+	/** Computes the classes of the symbols of a transition table.
+	 *
+	 * @param delta	a transition table with <code>n</code> rows of <code>k</code> entries
+	 * @param n		the number of states
+	 * @param k		the number of symbols
+	 * @return an array that maps every symbol index to its class. The classes are numbered
+	 * 		<code>0, 1, ...</code> in the order of their first symbol.
+	 */
+	static int[] classify(int[] delta, int n, int k) {
+
+		// the symbols, ordered so that every class occupies a range of order, and the first position of every range
+
+		int[] order = new int[k];
+		for(int c = 0; c < k; c++)
+			order[c] = c;
+		boolean[] starts = new boolean[k + 1];
+		starts[0] = true;
+		starts[k] = true;
+		int classes = k == 0 ? 0 : 1;
+
+		long[] keys = new long[k];
+
+		for(int s = 0; s < n && classes < k; s++) {
+			int row = s * k;
+			for(int start = 0, end; start < k; start = end) {
+				end = start + 1;
+				while(!starts[end])
+					end++;
+
+				int first = delta[row + order[start]];
+				int i = start + 1;
+				while(i < end && delta[row + order[i]] == first)
+					i++;
+				if (i == end)
+					continue;
+
+				// sort the class by the target of every symbol (DEAD sorts first), then by the symbol
+
+				for(int j = start; j < end; j++)
+					keys[j] = (long) (delta[row + order[j]] + 1) << 32 | order[j];
+				Arrays.sort(keys, start, end);
+				for(int j = start; j < end; j++)
+					order[j] = (int) keys[j];
+				for(int j = start + 1; j < end; j++)
+					if (keys[j] >>> 32 != keys[j - 1] >>> 32) {
+						starts[j] = true;
+						classes++;
+					}
+			}
+		}
+
+		// number the classes in the order of their first symbol
+
+		int[] rangeOf = new int[k];
+		for(int i = 0, range = -1; i < k; i++) {
+			if (starts[i])
+				range++;
+			rangeOf[order[i]] = range;
+		}
+
+		int[] number = new int[classes];
+		Arrays.fill(number, -1);
+		int[] classOf = new int[k];
+		int next = 0;
+		for(int c = 0; c < k; c++) {
+			if (number[rangeOf[c]] < 0)
+				number[rangeOf[c]] = next++;
+			classOf[c] = number[rangeOf[c]];
+		}
+
+		return classOf;
+	}
+
+	/** Returns the number of classes in the result of {@link #classify(int[], int, int)}.
+	 *
+	 * @param classOf the class of every symbol
+	 * @return the number of classes
+	 */
+	static int count(int[] classOf) {
+		int count = 0;
+		for(int symbolClass : classOf)
+			count = Math.max(count, symbolClass + 1);
+		return count;
+	}
+}
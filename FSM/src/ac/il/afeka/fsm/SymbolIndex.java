@@ -0,0 +1,99 @@
+package ac.il.afeka.fsm;
+import java.util.Arrays;
+
+/** Maps the symbols of an alphabet to their indices in constant time.
+ *
+ * <p>When the symbols span a narrow range of characters (as ASCII alphabets do) the index is a single array
+ * indexed by the distance of a character from the smallest symbol. Otherwise it is a two level table: the high
+ * byte of a character selects a page of 256 entries, and the low byte selects the entry. Pages without symbols
+ * share one empty page, so a sparse Unicode alphabet costs a few pages, and a lookup never probes or collides.</p>
+ */
+final class SymbolIndex {
+
+	/** The index of a character that is not a symbol. */
+	static final int NONE = -1;
+
+	// the widest range of characters that gets a single array
+
+	private static final int DENSE_RANGE = 4096;
+
+	private static final int PAGE_BITS = 8;
+
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+	private static final int[] EMPTY_PAGE = new int[PAGE_SIZE];
+
+	static {
+		Arrays.fill(EMPTY_PAGE, NONE);
+	}
+
+	private final char min;
+
+	private final int[] dense;
+
+	private final int[][] pages;
+
+	/**
+	 * Creates the index of a list of symbols.
+	 *
+	 * @param symbols the symbols, in the order of their indices. If a symbol repeats, its first index is kept.
+	 */
+	SymbolIndex(char[] symbols) {
+		this(symbols, identity(symbols.length));
+	}
+
+	/**
+	 * Creates an index that maps every symbol to a given value.
+	 *
+	 * @param symbols	the symbols
+	 * @param values	the value of every symbol, in the order of <code>symbols</code>. If a symbol repeats, its first value is kept.
+	 */
+	SymbolIndex(char[] symbols, int[] values) {
+
+		char min = Character.MAX_VALUE, max = Character.MIN_VALUE;
+		for(char symbol : symbols) {
+			min = (char) Math.min(min, symbol);
+			max = (char) Math.max(max, symbol);
+		}
+
+		if (symbols.length == 0 || max - min < DENSE_RANGE) {
+			this.min = min;
+			this.dense = new int[symbols.length == 0 ? 0 : max - min + 1];
+			this.pages = null;
+			Arrays.fill(dense, NONE);
+			for(int i = symbols.length - 1; i >= 0; i--)
+				dense[symbols[i] - min] = values[i];
+		} else {
+			this.min = 0;
+			this.dense = null;
+			this.pages = new int[PAGE_SIZE][];
+			Arrays.fill(pages, EMPTY_PAGE);
+			for(int i = symbols.length - 1; i >= 0; i--) {
+				int page = symbols[i] >>> PAGE_BITS;
+				if (pages[page] == EMPTY_PAGE)
+					pages[page] = EMPTY_PAGE.clone();
+				pages[page][symbols[i] & (PAGE_SIZE - 1)] = values[i];
+			}
+		}
+	}
+
+	private static int[] identity(int length) {
+		int[] values = new int[length];
+		for(int i = 0; i < length; i++)
+			values[i] = i;
+		return values;
+	}
+
+	/**
+	 *
+	 * @param symbol a character
+	 * @return the value of <code>symbol</code>, or <code>NONE</code> if it is not a symbol
+	 */
+	int indexOf(char symbol) {
+		if (dense != null) {
+			int i = symbol - min;
+			return i >= 0 && i < dense.length ? dense[i] : NONE;
+		}
+		return pages[symbol >>> PAGE_BITS][symbol & (PAGE_SIZE - 1)];
+	}
+}
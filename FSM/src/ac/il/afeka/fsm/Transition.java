@@ -1,4 +1,5 @@
 package ac.il.afeka.fsm;
+import java.io.IOException;
 import java.io.PrintStream;
 
 public class Transition implements Comparable<Transition> {
@@ -64,6 +65,18 @@ public class Transition implements Comparable<Transition> {
 		return fromState.encode() + "," + (symbol == null ? "" : symbol) + "," + toState.encode();
 	}
 
+	/**
+	 * Appends the encoding of this transition, as returned by {@link #encode()}.
+	 * @param out where to append the encoding
+	 * @throws IOException if <code>out</code> throws
+	 */
+	public void encodeTo(Appendable out) throws IOException {
+		out.append(fromState.encode()).append(',');
+		if (symbol != null)
+			out.append(symbol);
+		out.append(',').append(toState.encode());
+	}
+
 	@Override
 	public int compareTo(Transition other) {
 		
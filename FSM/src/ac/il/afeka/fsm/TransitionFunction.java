@@ -1,4 +1,5 @@
 package ac.il.afeka.fsm;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -30,6 +31,12 @@ public class TransitionFunction {
 		this.delta = delta;
 	}
 	
+	// creates a transition function that uses the given mapping as is
+	
+	TransitionFunction(Map<State, Map<Character, State> > delta) {
+		this.delta = delta;
+	}
+	
 	/**
 	 * Returns the next state that this machine moves to.
 	 * 
@@ -105,7 +112,23 @@ public class TransitionFunction {
 	 */
 	public String encode() {
 		
-		String encoding = "";
+		StringBuilder encoding = new StringBuilder();
+		
+		try {
+			encodeTo(encoding);
+		} catch (IOException e) {
+			throw new AssertionError(e); // a StringBuilder does not throw
+		}
+ 		
+		return encoding.toString();
+	}
+
+	/** Appends the encoding of this transition function, as returned by {@link #encode()}.
+	 * 
+	 * @param out where to append the encoding
+	 * @throws IOException if <code>out</code> throws
+	 */
+	public void encodeTo(Appendable out) throws IOException {
 		
 		List<Transition> transitionsList = new ArrayList<Transition>(transitions());
 		Collections.sort(transitionsList);
@@ -113,14 +136,13 @@ public class TransitionFunction {
 		Iterator<Transition> p = transitionsList.iterator();
 		
 		if (p.hasNext()) {
-			encoding = encoding + p.next().encode();
+			p.next().encodeTo(out);
 		}
 		
 		while(p.hasNext()) {
-			encoding = encoding + ";" + p.next().encode();
+			out.append(';');
+			p.next().encodeTo(out);
 		}
- 		
-		return encoding;
 	}
 
 	/** Checks that the transition function contains valid states and symbols. 
@@ -1,6 +1,5 @@
 package ac.il.afeka.fsm;
 import java.util.HashSet;
-import java.util.Scanner;
 import java.util.Set;
 
 public class TransitionTuple {
@@ -17,32 +16,23 @@ public class TransitionTuple {
 
 	public static TransitionTuple parseTuple(String encoding) {
 		
-		Scanner scanner = new Scanner(encoding);
-		scanner.useDelimiter("\\s*,\\s*");
+		EncodingParser parsed = EncodingParser.parseTransitions(encoding);
 		
-		Integer fromStateId = scanner.nextInt();
-		Character symbol;
-		String symbolOrNothing = scanner.next();
-		if (symbolOrNothing.length() == 0)
-			symbol = Alphabet.EPSILON;
-		else
-			symbol = symbolOrNothing.charAt(0);
-		Integer toStateId = scanner.nextInt();
-		scanner.close();
-		return new TransitionTuple(fromStateId, symbol, toStateId);
+		if (parsed.transitionCount != 1)
+			throw new IllegalArgumentException("Expected a single transition, found " + parsed.transitionCount + " in \"" + encoding + "\"");
+		
+		return new TransitionTuple(parsed.fromStateIds[0], parsed.transitionSymbols[0], parsed.toStateIds[0]);
 	}
 
 	public static Set<TransitionTuple> parseTupleList(String encoding) {
 		
-		Scanner scanner = new Scanner(encoding);
-		scanner.useDelimiter("\\s*;\\s*");
+		EncodingParser parsed = EncodingParser.parseTransitions(encoding);
 		
 		Set<TransitionTuple> tuples = new HashSet<TransitionTuple>();
 		
-		while(scanner.hasNext()) {
-			tuples.add(parseTuple(scanner.next()));
+		for(int i = 0; i < parsed.transitionCount; i++) {
+			tuples.add(new TransitionTuple(parsed.fromStateIds[i], parsed.transitionSymbols[i], parsed.toStateIds[i]));
 		}
-		scanner.close();
 		return tuples;
 	}
 
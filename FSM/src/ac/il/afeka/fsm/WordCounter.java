@@ -0,0 +1,204 @@
+package ac.il.afeka.fsm;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Counts the strings of every length that a compiled machine accepts.
+ *
+ * <p>The count is a dynamic program over the transition table: the number of strings of length <code>r</code>
+ * that lead from state <code>s</code> to an accepting state is the sum, over the symbols, of the same number of
+ * length <code>r - 1</code> for the state that <code>s</code> moves to. The symbols of a class move every state
+ * to the same state, so every class contributes once, multiplied by its size. Each length takes one pass of
+ * <code>O(n m)</code> over the table, and on large machines the states of a pass are split between the threads of
+ * a fork/join pool.</p>
+ *
+ * <p>Only the states that are reachable from the initial state take part in the passes. In long arithmetic, a
+ * count that does not fit in a long is kept as an overflow mark. The counts are never negative, so every count
+ * that depends on a mark overflows too, and only a mark that reaches the count of the initial state is an error.</p>
+ */
+final class WordCounter {
+
+	/** The number of states from which the passes run in parallel. */
+	static final int PARALLEL_STATES = 1 << 12;
+
+	// the number of states that a single task updates
+
+	private static final int TASK_STATES = 1 << 10;
+
+	// a count that does not fit in a long
+
+	private static final long OVERFLOW = -1;
+
+	private final CompiledDFSM machine;
+
+	private final int n;
+
+	private final int m;
+
+	// the number of symbols in every class
+
+	private final long[] classSize;
+
+	// the states that are reachable from the initial state, the only ones that the passes update
+
+	private final int[] states;
+
+	WordCounter(CompiledDFSM machine) {
+		this.machine = machine;
+		this.n = machine.stateCount();
+
+		BitSet reachable = machine.reachable();
+		this.states = new int[reachable.cardinality()];
+		for(int s = reachable.nextSetBit(0), i = 0; s >= 0; s = reachable.nextSetBit(s + 1))
+			states[i++] = s;
+
+		this.m = machine.classCount();
+		this.classSize = new long[m];
+		for(int c = 0; c < machine.symbolCount(); c++)
+			classSize[machine.symbolClass(c)]++;
+	}
+
+	/** Counts the accepted strings of every length.
+	 *
+	 * @param maxLength	the longest length to count
+	 * @param pool		the pool that runs the passes of large machines, or null to run them in the calling thread
+	 * @return an array whose entry <code>r</code> is the number of accepted strings of length <code>r</code>
+	 * @throws ArithmeticException if a count does not fit in a long
+	 */
+	long[] count(int maxLength, ForkJoinPool pool) {
+		long[] counts = new long[checkLength(maxLength) + 1];
+		int initial = machine.initialState();
+		if (initial == CompiledDFSM.DEAD)
+			return counts;
+
+		long[] from = new long[n], to = new long[n];
+		for(int s : states)
+			from[s] = machine.isAccepting(s) ? 1 : 0;
+		counts[0] = from[initial];
+
+		for(int r = 1; r <= maxLength; r++) {
+			pass(new Pass(from, to, null, null, 0, states.length), pool);
+			long[] swap = from;
+			from = to;
+			to = swap;
+			if (from[initial] == OVERFLOW)
+				throw new ArithmeticException("The number of accepted strings of length " + r + " does not fit in a long");
+			counts[r] = from[initial];
+		}
+
+		return counts;
+	}
+
+	/** Counts the accepted strings of every length, with no bound on the size of the counts.
+	 *
+	 * @param maxLength	the longest length to count
+	 * @param pool		the pool that runs the passes of large machines, or null to run them in the calling thread
+	 * @return an array whose entry <code>r</code> is the number of accepted strings of length <code>r</code>
+	 */
+	BigInteger[] countExact(int maxLength, ForkJoinPool pool) {
+		BigInteger[] counts = new BigInteger[checkLength(maxLength) + 1];
+		Arrays.fill(counts, BigInteger.ZERO);
+		int initial = machine.initialState();
+		if (initial == CompiledDFSM.DEAD)
+			return counts;
+
+		BigInteger[] from = new BigInteger[n], to = new BigInteger[n];
+		for(int s : states)
+			from[s] = machine.isAccepting(s) ? BigInteger.ONE : BigInteger.ZERO;
+		counts[0] = from[initial];
+
+		for(int r = 1; r <= maxLength; r++) {
+			pass(new Pass(null, null, from, to, 0, states.length), pool);
+			BigInteger[] swap = from;
+			from = to;
+			to = swap;
+			counts[r] = from[initial];
+		}
+
+		return counts;
+	}
+
+	private static int checkLength(int maxLength) {
+		if (maxLength < 0 || maxLength == Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Invalid length bound " + maxLength);
+		return maxLength;
+	}
+
+	// count + size * from, or OVERFLOW if it does not fit in a long
+
+	private static long add(long count, long size, long from) {
+		if (from == OVERFLOW || size > Long.MAX_VALUE / from)
+			return OVERFLOW;
+		long sum = count + size * from;
+		return sum < 0 ? OVERFLOW : sum;
+	}
+
+	private void pass(Pass pass, ForkJoinPool pool) {
+		if (pool == null || states.length < PARALLEL_STATES)
+			pass.update();
+		else
+			pool.invoke(pass);
+	}
+
+	// one pass of the dynamic program over states[start..end-1], in long or in BigInteger arithmetic
+
+	private final class Pass extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long[] from, to;
+
+		private final BigInteger[] exactFrom, exactTo;
+
+		private final int start, end;
+
+		Pass(long[] from, long[] to, BigInteger[] exactFrom, BigInteger[] exactTo, int start, int end) {
+			this.from = from;
+			this.to = to;
+			this.exactFrom = exactFrom;
+			this.exactTo = exactTo;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start > TASK_STATES) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new Pass(from, to, exactFrom, exactTo, start, middle), new Pass(from, to, exactFrom, exactTo, middle, end));
+			} else {
+				update();
+			}
+		}
+
+		// updates the states of this pass in the calling thread, with no forking
+
+		void update() {
+			if (from != null) {
+				for(int i = start; i < end; i++) {
+					int s = states[i];
+					long count = 0;
+					for(int c = 0; c < m && count != OVERFLOW; c++) {
+						int t = machine.nextOnClass(s, c);
+						if (t != CompiledDFSM.DEAD && from[t] != 0)
+							count = add(count, classSize[c], from[t]);
+					}
+					to[s] = count;
+				}
+			} else {
+				for(int i = start; i < end; i++) {
+					int s = states[i];
+					BigInteger count = BigInteger.ZERO;
+					for(int c = 0; c < m; c++) {
+						int t = machine.nextOnClass(s, c);
+						if (t != CompiledDFSM.DEAD && exactFrom[t].signum() != 0)
+							count = count.add(exactFrom[t].multiply(BigInteger.valueOf(classSize[c])));
+					}
+					exactTo[s] = count;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package ac.il.afeka.fsm;
+import java.util.NoSuchElementException;
+
+/** Enumerates the strings over an alphabet in its lexicographical order, in place.
+ *
+ * <p>The strings are ordered by length first, and strings of the same length are ordered by the order of the
+ * alphabet: for the alphabet {a,b} the order is "", a, b, aa, ab, ba, bb, aaa, ... The current string is kept in a
+ * <code>char[]</code> that {@link #next()} advances like an odometer, so stepping through millions of strings
+ * allocates nothing beyond the occasional growth of the buffer.</p>
+ *
+ * <p>{@link #current()} is a live view of the current string: it changes when the enumerator moves. Call its
+ * <code>toString()</code> to keep a copy. An enumerator is not thread safe.</p>
+ */
+public final class WordEnumerator {
+
+	private final char[] symbols;
+
+	// the current string, and the index in the alphabet of each of its characters
+
+	private char[] word;
+
+	private int[] digits;
+
+	private int length;
+
+	private final CharSequence current = new Current();
+
+	/**
+	 * Creates an enumerator that starts at the empty string.
+	 *
+	 * @param alphabet the alphabet of the strings
+	 */
+	public WordEnumerator(Alphabet alphabet) {
+		this.symbols = new char[alphabet.size()];
+		int i = 0;
+		for(Character symbol : alphabet)
+			symbols[i++] = symbol;
+
+		this.word = new char[16];
+		this.digits = new int[16];
+		this.length = 0;
+	}
+
+	/**
+	 *
+	 * @return a view of the current string. It reflects later moves of this enumerator.
+	 */
+	public CharSequence current() {
+		return current;
+	}
+
+	/**
+	 *
+	 * @return the length of the current string
+	 */
+	public int length() {
+		return length;
+	}
+
+	/** Moves to the empty string, the first string in the order. */
+	public void reset() {
+		length = 0;
+	}
+
+	/** Moves to the next string in the lexicographical order.
+	 *
+	 * @throws NoSuchElementException if the alphabet is empty, so the empty string is the only string
+	 */
+	public void next() {
+		int k = symbols.length;
+		if (k == 0)
+			throw new NoSuchElementException("The empty string is the only string over an empty alphabet");
+
+		int i = length - 1;
+		while(i >= 0 && digits[i] == k - 1) {
+			digits[i] = 0;
+			word[i] = symbols[0];
+			i--;
+		}
+
+		if (i >= 0) {
+			digits[i]++;
+			word[i] = symbols[digits[i]];
+		} else {
+			ensureCapacity(length + 1);
+			digits[length] = 0;
+			word[length] = symbols[0];
+			length++;
+		}
+	}
+
+	/** Moves to the string at position <code>n</code> of the lexicographical order, where the empty string is at position 0.
+	 *
+	 * @param n a position
+	 * @throws IllegalArgumentException if <code>n</code> is negative, positive when the alphabet is empty, or too
+	 * 		large for a unary alphabet
+	 */
+	public void seek(long n) {
+		if (n < 0)
+			throw new IllegalArgumentException("Negative position " + n);
+
+		int k = symbols.length;
+		if (k == 0 && n > 0)
+			throw new IllegalArgumentException("The empty string is the only string over an empty alphabet");
+
+		if (k == 1) {
+			if (n > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("Position " + n + " is beyond the longest string this enumerator can hold");
+			ensureCapacity((int) n);
+			length = (int) n;
+			for(int i = 0; i < length; i++) {
+				digits[i] = 0;
+				word[i] = symbols[0];
+			}
+			return;
+		}
+
+		// skip the strings that are shorter than the target: there are k^l strings of length l
+
+		int l = 0;
+		long count = 1;
+		while(n >= count) {
+			n -= count;
+			l++;
+			count = count > Long.MAX_VALUE / k ? Long.MAX_VALUE : count * k;
+		}
+
+		// n is now the position of the target among the strings of length l: write it in base k
+
+		ensureCapacity(l);
+		length = l;
+		for(int i = l - 1; i >= 0; i--) {
+			digits[i] = (int) (n % k);
+			word[i] = symbols[digits[i]];
+			n /= k;
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > word.length) {
+			int size = Math.max(capacity, 2 * word.length);
+			char[] newWord = new char[size];
+			int[] newDigits = new int[size];
+			System.arraycopy(word, 0, newWord, 0, length);
+			System.arraycopy(digits, 0, newDigits, 0, length);
+			word = newWord;
+			digits = newDigits;
+		}
+	}
+
+	private final class Current implements CharSequence {
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length)
+				throw new IndexOutOfBoundsException("Index " + index + " is out of a string of length " + length);
+			return word[index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length || start > end)
+				throw new IndexOutOfBoundsException("Range " + start + ".." + end + " is out of a string of length " + length);
+			return new String(word, start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(word, 0, length);
+		}
+	}
+}
@@ -6,6 +6,7 @@ import java.util.Arrays;
 import org.junit.Test;
 
 import ac.il.afeka.fsm.Alphabet;
+import ac.il.afeka.fsm.WordEnumerator;
 
 public class TestAlphabetEnumeration {
 
@@ -99,4 +100,77 @@ public class TestAlphabetEnumeration {
 		assertEquals("baabab",next);
 	}
 
-}
+
+	@Test
+	public void testIndexOf() {
+		
+		Alphabet alphabet = new Alphabet(new ArrayList<Character>(Arrays.asList('b', 'a', 'c')));
+		
+		assertEquals(0, alphabet.indexOf('b'));
+		assertEquals(1, alphabet.indexOf('a'));
+		assertEquals(2, alphabet.indexOf('c'));
+		assertEquals(-1, alphabet.indexOf('d'));
+		assertTrue(alphabet.contains('c'));
+		assertFalse(alphabet.contains('`'));
+		assertFalse(alphabet.contains(null));
+	}
+
+	@Test
+	public void testIndexOfSparse() {
+		
+		Alphabet alphabet = new Alphabet(new ArrayList<Character>(Arrays.asList('a', '\u05D0', '\u4E2D', '\uFFFD')));
+		
+		assertEquals(0, alphabet.indexOf('a'));
+		assertEquals(1, alphabet.indexOf('\u05D0'));
+		assertEquals(2, alphabet.indexOf('\u4E2D'));
+		assertEquals(3, alphabet.indexOf('\uFFFD'));
+		assertEquals(-1, alphabet.indexOf('b'));
+		assertEquals(-1, alphabet.indexOf('\u4E2E'));
+		assertEquals(4, alphabet.size());
+	}
+
+	@Test
+	public void testNextThreeSymbols() {
+		
+		Alphabet alphabet = new Alphabet(new ArrayList<Character>(Arrays.asList('a','b','c')));
+		
+		assertEquals("aca", alphabet.next("abc"));
+		assertEquals("aaaa", alphabet.next("ccc"));
+	}
+
+	@Test
+	public void testEnumerator() {
+		
+		Alphabet alphabet = new Alphabet(new ArrayList<Character>(Arrays.asList('a','b','c')));
+		
+		WordEnumerator words = alphabet.enumerator();
+		String next = alphabet.first();
+		
+		for(int i = 0; i < 1000; i++) {
+			assertEquals(next, words.current().toString());
+			next = alphabet.next(next);
+			words.next();
+		}
+	}
+
+	@Test
+	public void testSeek() {
+		
+		Alphabet alphabet = new Alphabet(new ArrayList<Character>(Arrays.asList('a','b')));
+		
+		WordEnumerator words = alphabet.enumerator();
+		
+		words.seek(100);
+		assertEquals("baabab", words.current().toString());
+		
+		words.next();
+		assertEquals("baabba", words.current().toString());
+		
+		words.seek(0);
+		assertEquals(0, words.length());
+		
+		WordEnumerator unary = new Alphabet(new ArrayList<Character>(Arrays.asList('x'))).enumerator();
+		unary.seek(3);
+		assertEquals("xxx", unary.current().toString());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import ac.il.afeka.fsm.DFSM;
+
+public class TestBinaryFormat {
+
+	private static final String ENDS_WITH_B = "0 1/a b/0,a,0;0,b,1;1,a,0;1,b,1/0/1";
+
+	@Test
+	public void testStreamRoundTrip() throws Exception {
+		
+		DFSM aDFSM = new DFSM(ENDS_WITH_B);
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		aDFSM.writeTo(out);
+		aDFSM.writeTo(out);
+		
+		ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+		
+		assertEquals(ENDS_WITH_B, DFSM.readFrom(in).encode());
+		assertEquals(ENDS_WITH_B, DFSM.readFrom(in).encode());
+		assertEquals(0, in.available());
+	}
+
+	@Test
+	public void testBufferRoundTrip() throws Exception {
+		
+		String encoding = "0/a b/0,a,0;0,b,0/0/";
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new DFSM(encoding).writeTo(out);
+		
+		ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+		DFSM read = DFSM.readFrom(buffer);
+		
+		assertEquals(encoding, read.encode());
+		assertFalse(buffer.hasRemaining());
+		assertFalse(read.compute("ab"));
+	}
+
+	@Test
+	public void testPartialRoundTrip() throws Exception {
+		
+		String encoding = "0 1/a b/0,a,1;1,b,1/0/1";
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DFSM.partial(encoding).writeTo(out);
+		
+		DFSM read = DFSM.readFrom(new ByteArrayInputStream(out.toByteArray()));
+		
+		assertEquals(encoding, read.encode());
+		assertFalse(read.isTotal());
+		assertTrue(read.compute("abb"));
+		assertFalse(read.compute("aba"));
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws Exception {
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new DFSM(ENDS_WITH_B).writeTo(out);
+		
+		byte[] bytes = out.toByteArray();
+		DFSM.readFrom(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+	}
+
+	@Test(expected = IOException.class)
+	public void testDuplicateStateId() throws Exception {
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new DFSM(ENDS_WITH_B).writeTo(out);
+		
+		// the header takes 18 bytes, then come the ids of the two states: give the second the id of the first
+		
+		ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+		buffer.putInt(22, buffer.getInt(18));
+		DFSM.readFrom(buffer);
+	}
+
+	@Test(expected = IOException.class)
+	public void testDuplicateSymbol() throws Exception {
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new DFSM(ENDS_WITH_B).writeTo(out);
+		
+		// the symbols follow the header and the ids of the two states: make the second symbol the first
+		
+		ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+		buffer.putChar(28, buffer.getChar(26));
+		DFSM.readFrom(buffer);
+	}
+}
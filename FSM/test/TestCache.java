@@ -0,0 +1,47 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ac.il.afeka.fsm.DFSM;
+import ac.il.afeka.fsm.DFSMCache;
+
+public class TestCache {
+
+	private static final String ENDS_WITH_B = "0 1/a b/0,a,0;0,b,1;1,a,0;1,b,1/0/1";
+
+	private static final String EMPTY = "0/a b/0,a,0;0,b,0/0/";
+
+	@Test
+	public void testHit() throws Exception {
+		
+		DFSMCache cache = new DFSMCache(2);
+		
+		DFSM first = cache.get(ENDS_WITH_B);
+		DFSM second = cache.get(ENDS_WITH_B);
+		
+		assertSame(first, second);
+		assertEquals(1, cache.hits());
+		assertEquals(1, cache.misses());
+		assertTrue(second.compute("ab"));
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		
+		DFSMCache cache = new DFSMCache(1);
+		
+		DFSM first = cache.get(ENDS_WITH_B);
+		cache.get(EMPTY);
+		
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.evictions());
+		assertNotSame(first, cache.get(ENDS_WITH_B));
+		assertEquals(3, cache.misses());
+	}
+
+	@Test(expected = Exception.class)
+	public void testInvalidEncoding() throws Exception {
+		
+		new DFSMCache(1).get("0/a b/0,a,0/0/");
+	}
+}
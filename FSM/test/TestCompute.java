@@ -0,0 +1,289 @@
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import ac.il.afeka.fsm.CompiledDFSM;
+import ac.il.afeka.fsm.DFSM;
+
+public class TestCompute {
+
+	// accepts the strings that end with b
+	private static final String ENDS_WITH_B = "0 1/a b/0 , a , 0; 0,b, 1 ;1, a, 0 ; 1, b, 1/0/ 1";
+
+	@Test
+	public void testAccepts() throws Exception {
+		
+		DFSM aDFSM = new DFSM(ENDS_WITH_B);
+		
+		assertTrue(aDFSM.compute("aab"));
+		assertTrue(aDFSM.compute("b"));
+	}
+
+	@Test
+	public void testRejects() throws Exception {
+		
+		DFSM aDFSM = new DFSM(ENDS_WITH_B);
+		
+		assertFalse(aDFSM.compute("bba"));
+		assertFalse(aDFSM.compute(""));
+	}
+
+	@Test
+	public void testSymbolNotInAlphabet() throws Exception {
+		
+		DFSM aDFSM = new DFSM(ENDS_WITH_B);
+		
+		assertFalse(aDFSM.compute("acb"));
+		assertFalse(aDFSM.compute("c"));
+	}
+
+	@Test
+	public void testCompiledTable() throws Exception {
+		
+		CompiledDFSM compiled = new DFSM(ENDS_WITH_B).compile();
+		
+		assertEquals(2, compiled.stateCount());
+		assertEquals(2, compiled.symbolCount());
+		assertEquals(0, compiled.initialState());
+		assertEquals(1, compiled.next(0, compiled.symbolIndex('b')));
+		assertEquals(0, compiled.next(1, compiled.symbolIndex('a')));
+		assertEquals(CompiledDFSM.DEAD, compiled.symbolIndex('c'));
+		assertTrue(compiled.isAccepting(1));
+	}
+
+	@Test
+	public void testReader() throws Exception {
+		
+		DFSM aDFSM = new DFSM(ENDS_WITH_B);
+		
+		char[] input = new char[100000];
+		Arrays.fill(input, 'a');
+		input[input.length - 1] = 'b';
+		
+		assertTrue(aDFSM.compute(new StringReader(new String(input))));
+		assertFalse(aDFSM.compute(new StringReader(new String(input, 0, input.length - 1))));
+	}
+
+	@Test
+	public void testInputStreamAndChannel() throws Exception {
+		
+		// symbols that take two bytes in UTF-8, so that some of them are split between buffers
+		
+		DFSM aDFSM = new DFSM("0 1/\u00e9 \u00e8/0,\u00e9,0;0,\u00e8,1;1,\u00e9,0;1,\u00e8,1/0/1");
+		
+		char[] input = new char[30001];
+		Arrays.fill(input, '\u00e9');
+		input[input.length - 1] = '\u00e8';
+		byte[] bytes = new String(input).getBytes(StandardCharsets.UTF_8);
+		
+		assertTrue(aDFSM.compute(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+		assertTrue(aDFSM.compute(Channels.newChannel(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8));
+		assertFalse(aDFSM.compute(Channels.newChannel(new ByteArrayInputStream(bytes, 0, bytes.length - 2)), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testMappedFile() throws Exception {
+		
+		DFSM aDFSM = new DFSM(ENDS_WITH_B);
+		
+		File file = File.createTempFile("input", ".txt");
+		file.deleteOnExit();
+		
+		byte[] input = new byte[100000];
+		Arrays.fill(input, (byte) 'a');
+		input[input.length - 1] = 'b';
+		
+		Files.write(file.toPath(), input);
+		assertTrue(aDFSM.computeMapped(file.toPath()));
+		
+		input[input.length - 1] = 'a';
+		Files.write(file.toPath(), input);
+		assertFalse(aDFSM.computeMapped(file.toPath()));
+	}
+
+	@Test
+	public void testParallel() throws Exception {
+		
+		// counts the a's modulo 3, accepting when the count is 0, so runs from different states never converge
+		
+		DFSM aDFSM = new DFSM("0 1 2/a b/0,a,1;0,b,0;1,a,2;1,b,1;2,a,0;2,b,2/0/0");
+		
+		Random random = new Random(1);
+		char[] input = new char[1000000];
+		for(int i = 0; i < input.length; i++)
+			input[i] = random.nextBoolean() ? 'a' : 'b';
+		String string = new String(input);
+		
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertEquals(aDFSM.compute(string), aDFSM.compute(string, pool));
+			assertEquals(aDFSM.compute(string + "a"), aDFSM.compute(string + "a", pool));
+			assertFalse(aDFSM.compute(string + "c", pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testParallelPartial() throws Exception {
+		
+		// accepts a b*: the first a after the beginning leads to the implicit dead state
+		
+		DFSM aDFSM = DFSM.partial("0 1/a b/0,a,1;1,b,1/0/1");
+		
+		char[] input = new char[300000];
+		Arrays.fill(input, 'b');
+		input[0] = 'a';
+		String string = new String(input);
+		
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertTrue(aDFSM.compute(string, pool));
+			
+			// a dead run in the middle of a chunk, between two merges
+			input[70100] = 'a';
+			assertFalse(aDFSM.compute(new String(input), pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testComputeAll() throws Exception {
+		
+		DFSM aDFSM = new DFSM(ENDS_WITH_B);
+		
+		Random random = new Random(2);
+		String[] inputs = new String[10000];
+		for(int i = 0; i < inputs.length; i++) {
+			char[] input = new char[random.nextInt(3000)];
+			for(int j = 0; j < input.length; j++)
+				input[j] = random.nextBoolean() ? 'a' : 'b';
+			inputs[i] = new String(input);
+		}
+		
+		boolean[] expected = new boolean[inputs.length];
+		for(int i = 0; i < inputs.length; i++)
+			expected[i] = aDFSM.compute(inputs[i]);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			assertTrue(Arrays.equals(expected, aDFSM.computeAll(inputs, executor)));
+			assertTrue(Arrays.equals(expected, aDFSM.computeAll(Arrays.asList(inputs))));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSymbolClasses() throws Exception {
+		
+		// accepts the strings that end with a digit, over the letters a..j and the digits 0..9
+		
+		StringBuilder encoding = new StringBuilder("0 1/");
+		for(char c = 'a'; c <= 'j'; c++)
+			encoding.append(c).append(' ');
+		for(char c = '0'; c <= '9'; c++)
+			encoding.append(c).append(c == '9' ? "/" : " ");
+		for(int s = 0; s < 2; s++) {
+			for(char c = 'a'; c <= 'j'; c++)
+				encoding.append(s).append(',').append(c).append(",0;");
+			for(char c = '0'; c <= '9'; c++)
+				encoding.append(s).append(',').append(c).append(",1").append(s == 1 && c == '9' ? "" : ";");
+		}
+		encoding.append("/0/1");
+		
+		DFSM aDFSM = new DFSM(encoding.toString());
+		CompiledDFSM compiled = aDFSM.compile();
+		
+		assertEquals(20, compiled.symbolCount());
+		assertEquals(2, compiled.classCount());
+		assertEquals(compiled.symbolClass(compiled.symbolIndex('a')), compiled.classOf('j'));
+		assertEquals(1, compiled.next(0, compiled.symbolIndex('7')));
+		
+		assertTrue(aDFSM.compute("abc123"));
+		assertFalse(aDFSM.compute("123abc"));
+		assertFalse(aDFSM.compute("12x"));
+		assertEquals(2, aDFSM.minimize().compile().stateCount());
+	}
+
+	@Test
+	public void testSymbolClassesSplitByLaterRows() throws Exception {
+		
+		// a, c and e agree on state 0 and b, d on state 1, but only a and e agree on every state. d is missing on state 2
+		
+		CompiledDFSM compiled = DFSM.partial("0 1 2/a b c d e/0,a,1;0,b,2;0,c,1;0,d,2;0,e,1;1,a,0;1,b,1;1,c,2;1,d,1;1,e,0;2,a,2;2,b,0;2,c,2;2,e,2/0/2").compile();
+		
+		assertEquals(4, compiled.classCount());
+		assertEquals(0, compiled.classOf('a'));
+		assertEquals(1, compiled.classOf('b'));
+		assertEquals(2, compiled.classOf('c'));
+		assertEquals(3, compiled.classOf('d'));
+		assertEquals(0, compiled.classOf('e'));
+		assertEquals(CompiledDFSM.DEAD, compiled.next(2, compiled.symbolIndex('d')));
+	}
+
+	@Test
+	public void testAbsorbingStates() throws Exception {
+		
+		// accepts the strings that contain ab: state 2 is an accepting sink. State 3 is unreachable and rejects everything
+		
+		DFSM aDFSM = new DFSM("0 1 2 3/a b/0,a,1;0,b,0;1,a,1;1,b,2;2,a,2;2,b,2;3,a,3;3,b,3/0/2");
+		CompiledDFSM compiled = aDFSM.compile();
+		
+		assertFalse(compiled.isAbsorbing(0));
+		assertTrue(compiled.isAbsorbing(2));
+		assertFalse(compiled.isDead(2));
+		assertTrue(compiled.isDead(3));
+		assertTrue(compiled.isDead(CompiledDFSM.DEAD));
+		assertTrue(compiled.complement().isDead(2));
+		
+		// longer than two chunks, so that the parallel runs below are split
+
+		char[] input = new char[300000];
+		Arrays.fill(input, 'a');
+		input[1] = 'b';
+		String string = new String(input);
+		
+		assertTrue(aDFSM.compute(string));
+		assertTrue(aDFSM.compute(new StringReader(string)));
+		
+		// a symbol that is not in the alphabet is still rejected after the sink
+		
+		assertFalse(aDFSM.compute(string + "c"));
+		assertFalse(aDFSM.compute(new StringReader(string + "c")));
+		assertFalse(aDFSM.compute(new ByteArrayInputStream((string + "c").getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+		
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertTrue(aDFSM.compute(string, pool));
+			assertFalse(aDFSM.compute(string + "c", pool));
+			assertFalse(aDFSM.compute(string.replace('b', 'a'), pool));
+			
+			// a symbol that is not in the alphabet well inside the second chunk, after every run has entered the sink
+			
+			char[] foreign = input.clone();
+			foreign[70100] = 'c';
+			assertFalse(aDFSM.compute(new String(foreign), pool));
+			
+			Arrays.fill(foreign, 'a');
+			foreign[70100] = 'c';
+			DFSM sink = new DFSM("0 1/a b/0,a,1;0,b,1;1,a,1;1,b,1/0/1");
+			assertFalse(sink.compute(new String(foreign), pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
\ No newline at end of file
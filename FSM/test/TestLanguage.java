@@ -0,0 +1,286 @@
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import ac.il.afeka.fsm.Alphabet;
+import ac.il.afeka.fsm.DFSM;
+
+public class TestLanguage {
+
+	// accepts the strings that end with b
+	private static final String ENDS_WITH_B = "0 1/a b/0,a,0;0,b,1;1,a,0;1,b,1/0/1";
+
+	// accepts the strings over a, b, c with an even number of a's and at least one c
+	private static final String EVEN_A_SOME_C = "0 1 2 3/a b c/0,a,1;0,b,0;0,c,2;1,a,0;1,b,1;1,c,3;2,a,3;2,b,2;2,c,2;3,a,2;3,b,3;3,c,3/0/2";
+
+	@Test
+	public void testAcceptedWords() throws Exception {
+		
+		Iterator<String> words = new DFSM(ENDS_WITH_B).acceptedWords(2);
+		
+		List<String> accepted = new ArrayList<String>();
+		while(words.hasNext())
+			accepted.add(words.next());
+		
+		assertEquals(Arrays.asList("b", "ab", "bb"), accepted);
+	}
+
+	@Test
+	public void testAcceptedWordsMatchEnumeration() throws Exception {
+		
+		DFSM aDFSM = new DFSM(EVEN_A_SOME_C);
+		Alphabet alphabet = Alphabet.parse("a b c");
+		
+		List<String> expected = new ArrayList<String>();
+		for(String s = alphabet.first(); s.length() <= 6; s = alphabet.next(s))
+			if (aDFSM.compute(s))
+				expected.add(s);
+		
+		assertEquals(expected, aDFSM.streamAcceptedWords(6).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testAcceptedWordsEmptyLanguage() throws Exception {
+		
+		assertFalse(new DFSM("0 1/a b/0,a,0;0,b,0;1,a,1;1,b,1/0/1").acceptedWords(Integer.MAX_VALUE).hasNext());
+	}
+
+	@Test(timeout = 10000)
+	public void testAcceptedWordsRepeatingLiveSets() throws Exception {
+		
+		// states 1 and 2 are unreachable, and the states live in r steps alternate between them
+		
+		assertFalse(new DFSM("0 1 2/a/0,a,0;1,a,2;2,a,1/0/1").acceptedWords(100000000).hasNext());
+		
+		// only the empty string is accepted, as state 2 is unreachable
+		
+		Iterator<String> words = new DFSM("0 1 2 3/a/0,a,1;1,a,1;2,a,3;3,a,2/0/0 2").acceptedWords(100000000);
+		assertEquals("", words.next());
+		assertFalse(words.hasNext());
+		
+		// the strings of even length: the live sets alternate between {0} and {1}
+		
+		words = new DFSM("0 1/a/0,a,1;1,a,0/0/0").acceptedWords(100000000);
+		assertEquals("", words.next());
+		assertEquals("aa", words.next());
+		assertEquals("aaaa", words.next());
+		assertTrue(words.hasNext());
+	}
+
+	@Test
+	public void testCountAccepted() throws Exception {
+		
+		DFSM aDFSM = new DFSM(EVEN_A_SOME_C);
+		Alphabet alphabet = Alphabet.parse("a b c");
+		
+		long[] expected = new long[7];
+		for(String s = alphabet.first(); s.length() <= 6; s = alphabet.next(s))
+			if (aDFSM.compute(s))
+				expected[s.length()]++;
+		
+		assertArrayEquals(expected, aDFSM.countAccepted(6));
+	}
+
+	@Test
+	public void testCountAcceptedExact() throws Exception {
+		
+		BigInteger[] counts = new DFSM(ENDS_WITH_B).countAcceptedExact(100);
+		
+		assertEquals(BigInteger.ZERO, counts[0]);
+		assertEquals(BigInteger.ONE.shiftLeft(99), counts[100]);
+	}
+
+	@Test(expected = ArithmeticException.class)
+	public void testCountAcceptedOverflow() throws Exception {
+		
+		new DFSM(ENDS_WITH_B).countAccepted(100);
+	}
+
+	@Test
+	public void testCountAcceptedNoSpuriousOverflow() throws Exception {
+		
+		// state 1 is unreachable, and its counts do not fit in a long
+		
+		assertArrayEquals(new long[71], new DFSM("0 1/a b/0,a,0;0,b,0;1,a,1;1,b,1/0/1").countAccepted(70));
+		
+		// a followed by any string over a, b, c: the count of state 1 overflows one length before the initial state's
+		
+		long[] counts = new DFSM("0 1 2/a b c/0,a,1;0,b,2;0,c,2;1,a,1;1,b,1;1,c,1;2,a,2;2,b,2;2,c,2/0/1").countAccepted(40);
+		
+		assertEquals(BigInteger.valueOf(3).pow(39).longValue(), counts[40]);
+	}
+
+	@Test
+	public void testCountAcceptedInCallingThread() throws Exception {
+		
+		// a cycle of 2000 states, more than a single task updates, accepting in state 0
+		
+		int n = 2000;
+		StringBuilder cycle = new StringBuilder();
+		for(int i = 0; i < n; i++)
+			cycle.append(i == 0 ? "" : " ").append(i);
+		cycle.append("/a/");
+		for(int i = 0; i < n; i++)
+			cycle.append(i == 0 ? "" : ";").append(i).append(",a,").append((i + 1) % n);
+		cycle.append("/0/0");
+		DFSM aDFSM = new DFSM(cycle.toString());
+		
+		long steals = ForkJoinPool.commonPool().getStealCount();
+		long[] counts = aDFSM.countAccepted(2 * n, null);
+		BigInteger[] exact = aDFSM.countAcceptedExact(2 * n, null);
+		
+		assertEquals(steals, ForkJoinPool.commonPool().getStealCount());
+		for(int r = 0; r <= 2 * n; r++) {
+			assertEquals(r % n == 0 ? 1 : 0, counts[r]);
+			assertEquals(BigInteger.valueOf(counts[r]), exact[r]);
+		}
+	}
+
+	@Test
+	public void testCountAcceptedLargeMachine() throws Exception {
+		
+		// a cycle of 5000 accepting states: every string is accepted
+		
+		int n = 5000;
+		StringBuilder cycle = new StringBuilder();
+		for(int i = 0; i < n; i++)
+			cycle.append(i == 0 ? "" : " ").append(i);
+		cycle.append("/a b/");
+		for(int i = 0; i < n; i++)
+			cycle.append(i == 0 ? "" : ";").append(i).append(",a,").append((i + 1) % n).append(";").append(i).append(",b,0");
+		cycle.append("/0/").append(cycle.substring(0, cycle.indexOf("/")));
+		
+		long[] counts = new DFSM(cycle.toString()).countAccepted(40);
+		
+		for(int r = 0; r <= 40; r++)
+			assertEquals(1L << r, counts[r]);
+	}
+
+	@Test
+	public void testProducts() throws Exception {
+		
+		DFSM endsWithB = new DFSM(ENDS_WITH_B);
+		DFSM evenASomeC = new DFSM(EVEN_A_SOME_C);
+		
+		DFSM intersection = endsWithB.intersection(evenASomeC);
+		DFSM union = endsWithB.union(evenASomeC);
+		DFSM difference = endsWithB.difference(evenASomeC);
+		DFSM symmetricDifference = endsWithB.symmetricDifference(evenASomeC);
+		
+		Alphabet alphabet = Alphabet.parse("a b c");
+		for(String s = alphabet.first(); s.length() <= 6; s = alphabet.next(s)) {
+			boolean first = endsWithB.compute(s), second = evenASomeC.compute(s);
+			assertEquals(s, first && second, intersection.compute(s));
+			assertEquals(s, first || second, union.compute(s));
+			assertEquals(s, first && !second, difference.compute(s));
+			assertEquals(s, first != second, symmetricDifference.compute(s));
+		}
+	}
+
+	@Test
+	public void testProductOfDisjointAlphabets() throws Exception {
+		
+		DFSM union = new DFSM(ENDS_WITH_B).union(new DFSM("0 1/x/0,x,1;1,x,1/0/1"));
+		
+		assertTrue(union.compute("ab"));
+		assertTrue(union.compute("xx"));
+		assertFalse(union.compute("xb"));
+		assertFalse(union.compute(""));
+		
+		// the product has the pairs (0,0), (0,sink), (1,sink), (sink,1) and (sink,sink)
+		assertEquals(5, union.compile().stateCount());
+	}
+
+	@Test
+	public void testEmptiness() throws Exception {
+		
+		assertTrue(new DFSM("0 1/a b/0,a,0;0,b,0;1,a,1;1,b,1/0/1").isEmpty());
+		assertNull(new DFSM("0 1/a b/0,a,0;0,b,0;1,a,1;1,b,1/0/1").findAcceptedWord());
+		
+		DFSM aDFSM = new DFSM(EVEN_A_SOME_C);
+		assertFalse(aDFSM.isEmpty());
+		assertEquals("c", aDFSM.findAcceptedWord());
+	}
+
+	@Test
+	public void testUniversality() throws Exception {
+		
+		assertTrue(new DFSM("0 1/a b/0,a,1;0,b,0;1,a,1;1,b,0/0/0 1").isUniversal());
+		
+		DFSM endsWithB = new DFSM(ENDS_WITH_B);
+		assertFalse(endsWithB.isUniversal());
+		assertEquals("", endsWithB.findRejectedWord());
+		assertEquals("aa", new DFSM("0 1 2/a b/0,a,1;0,b,0;1,a,2;1,b,0;2,a,2;2,b,2/0/0 1").findRejectedWord());
+	}
+
+	@Test
+	public void testInclusion() throws Exception {
+		
+		DFSM endsWithB = new DFSM(ENDS_WITH_B);
+		DFSM endsWithBB = new DFSM("0 1 2/a b/0,a,0;0,b,1;1,a,0;1,b,2;2,a,0;2,b,2/0/2");
+		
+		assertTrue(endsWithBB.isSubsetOf(endsWithB));
+		assertNull(endsWithBB.findWordNotIn(endsWithB));
+		
+		assertFalse(endsWithB.isSubsetOf(endsWithBB));
+		assertEquals("b", endsWithB.findWordNotIn(endsWithBB));
+		
+		DFSM evenASomeC = new DFSM(EVEN_A_SOME_C);
+		assertTrue(evenASomeC.isSubsetOf(endsWithB.union(evenASomeC)));
+		assertEquals("b", endsWithB.union(evenASomeC).findWordNotIn(evenASomeC));
+	}
+
+	@Test
+	public void testPartialMachine() throws Exception {
+		
+		// accepts a b*, and has no transitions to a dead state
+		DFSM partial = DFSM.partial("0 1/a b/0,a,1;1,b,1/0/1");
+		
+		assertFalse(partial.isTotal());
+		assertTrue(partial.compute("abbb"));
+		assertFalse(partial.compute("b"));
+		assertFalse(partial.compute("aba"));
+		assertEquals("", partial.findRejectedWord());
+		assertEquals("b", DFSM.partial("0 1/a b/0,a,1;1,a,1/0/0 1").findRejectedWord());
+		
+		DFSM total = partial.totalize();
+		assertTrue(total.isTotal());
+		assertTrue(total.equivalentTo(partial));
+		assertEquals(3, total.compile().stateCount());
+	}
+
+	@Test(expected = Exception.class)
+	public void testPartialEncodingIsNotTotal() throws Exception {
+		
+		new DFSM("0 1/a b/0,a,1;1,b,1/0/1");
+	}
+
+	@Test
+	public void testComplement() throws Exception {
+		
+		DFSM endsWithB = new DFSM(ENDS_WITH_B);
+		DFSM partial = DFSM.partial("0 1/a b/0,a,1;1,b,1/0/1");
+		
+		DFSM complement = endsWithB.complement();
+		DFSM partialComplement = partial.complement();
+		
+		Alphabet alphabet = Alphabet.parse("a b");
+		for(String s = alphabet.first(); s.length() <= 6; s = alphabet.next(s)) {
+			assertEquals(s, !endsWithB.compute(s), complement.compute(s));
+			assertEquals(s, !partial.compute(s), partialComplement.compute(s));
+		}
+		
+		// strings over other symbols are still rejected
+		assertFalse(complement.compute("c"));
+		assertTrue(complement.complement().equivalentTo(endsWithB));
+		assertTrue(endsWithB.union(complement).isUniversal());
+	}
+}
\ No newline at end of file
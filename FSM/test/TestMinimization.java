@@ -1,8 +1,13 @@
 import static org.junit.Assert.*;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Test;
 
 import ac.il.afeka.fsm.DFSM;
+import ac.il.afeka.fsm.IdentifiedState;
+import ac.il.afeka.fsm.State;
 
 public class TestMinimization {
 
@@ -43,4 +48,104 @@ public class TestMinimization {
 		
 		assertEquals(minimal, new DFSM(original).minimize().minimize().toCanonicForm().encode());
 	}
-}
+
+	@Test
+	public void testEquivalence() throws Exception {
+		
+		DFSM original = new DFSM("1 2 3 4 5 6/a b/1,a,2;1,b,4;2,a,3;2,b,6;3,a,2;3,b,4;4,a,6;4,b,5;5,a,2;5,b,4;6,a,6;6,b,6/1/2 4");
+		
+		assertTrue(original.equivalentTo(original.minimize()));
+		assertNull(original.findDistinguishingWord(original.minimize()));
+		
+		// the same machine, but accepting in state 5 as well
+		DFSM other = new DFSM("1 2 3 4 5 6/a b/1,a,2;1,b,4;2,a,3;2,b,6;3,a,2;3,b,4;4,a,6;4,b,5;5,a,2;5,b,4;6,a,6;6,b,6/1/2 4 5");
+		
+		assertFalse(original.equivalentTo(other));
+		assertEquals("bb", original.findDistinguishingWord(other));
+	}
+
+	@Test
+	public void testEquivalenceOverDifferentAlphabets() throws Exception {
+		
+		DFSM ab = new DFSM("0/a b/0,a,0;0,b,0/0/0");
+		DFSM abc = new DFSM("0 1/a b c/0,a,0;0,b,0;0,c,1;1,a,1;1,b,1;1,c,1/0/0");
+		
+		assertTrue(ab.equivalentTo(abc));
+		
+		DFSM abcAll = new DFSM("0/a b c/0,a,0;0,b,0;0,c,0/0/0");
+		
+		assertFalse(ab.equivalentTo(abcAll));
+		assertEquals("c", ab.findDistinguishingWord(abcAll));
+	}
+
+	@Test
+	public void testPartialMachine() throws Exception {
+		
+		// states 1 and 2 both accept a*, but only 1 has a transition on b, to the dead state 3
+		DFSM partial = DFSM.partial("0 1 2 3/a b/0,a,1;0,b,2;1,a,1;1,b,3;2,a,2;3,a,3;3,b,3/0/1 2");
+		
+		assertEquals("0 1 2/a b/0,a,1;0,b,1;1,a,1;1,b,2;2,a,2;2,b,2/0/1", partial.minimize().toCanonicForm().encode());
+		assertTrue(partial.minimize().equivalentTo(partial));
+		
+		// without state 3, the missing transitions are the only difference between states 1 and 2
+		DFSM sparse = DFSM.partial("0 1 2/a b/0,a,1;0,b,2;1,a,1;2,a,2;2,b,2/0/1 2");
+		
+		assertEquals(3, sparse.minimize().compile().stateCount());
+		assertTrue(sparse.minimize().equivalentTo(sparse));
+	}
+
+	@Test
+	public void testLargeCycle() throws Exception {
+		
+		// a cycle of 3000 states on a, b resets to 0, accepting every third state: minimal machine has 3 states
+		
+		int n = 3000;
+		StringBuilder original = new StringBuilder();
+		for(int i = 0; i < n; i++)
+			original.append(i == 0 ? "" : " ").append(i);
+		original.append("/a b/");
+		for(int i = 0; i < n; i++)
+			original.append(i == 0 ? "" : ";").append(i).append(",a,").append((i + 1) % n).append(";").append(i).append(",b,0");
+		original.append("/0/");
+		for(int i = 0; i < n; i += 3)
+			original.append(i == 0 ? "" : " ").append(i);
+		
+		String minimal = "0 1 2/a b/0,a,1;0,b,0;1,a,2;1,b,0;2,a,0;2,b,0/0/0";
+		
+		assertEquals(minimal, new DFSM(original.toString()).minimize().toCanonicForm().encode());
+	}
+
+	@Test
+	public void testReachableStates() throws Exception {
+		
+		DFSM aDFSM = new DFSM("0 1 2 3/a b/0,a,1;0,b,0;1,a,1;1,b,0;2,a,3;2,b,3;3,a,3;3,b,2/0/1");
+		
+		assertEquals(states(0, 1), aDFSM.reachableStates());
+		assertEquals(states(2, 3), aDFSM.reachableStates(states(3)));
+		assertEquals(states(0, 1, 2, 3), aDFSM.reachableStates(states(1, 2)));
+	}
+
+	@Test
+	public void testReachableLongChain() throws Exception {
+		
+		// a chain of 20000 states, each reachable only from its predecessor
+		
+		int n = 20000;
+		StringBuilder chain = new StringBuilder();
+		for(int i = 0; i < n; i++)
+			chain.append(i == 0 ? "" : " ").append(i);
+		chain.append("/a/");
+		for(int i = 0; i < n; i++)
+			chain.append(i == 0 ? "" : ";").append(i).append(",a,").append(Math.min(i + 1, n - 1));
+		chain.append("/0/");
+		
+		assertEquals(n, new DFSM(chain.toString()).reachableStates().size());
+	}
+
+	private static Set<State> states(int... ids) {
+		Set<State> states = new HashSet<State>();
+		for(int id : ids)
+			states.add(new IdentifiedState(id));
+		return states;
+	}
+}
\ No newline at end of file
@@ -1,8 +1,19 @@
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Test;
 
+import ac.il.afeka.fsm.Alphabet;
 import ac.il.afeka.fsm.DFSM;
+import ac.il.afeka.fsm.IdentifiedState;
+import ac.il.afeka.fsm.State;
+import ac.il.afeka.fsm.Transition;
+import ac.il.afeka.fsm.TransitionFunction;
 
 public class TestParsing {
 
@@ -26,4 +37,81 @@ public class TestParsing {
 		assertEquals(encoding, aDFSM.encode());
 
 	}
+
+	@Test
+	public void testEncodeTo() throws Exception {
+		
+		String encoding = "0 1/a b/0,a,0;0,b,1;1,a,0;1,b,1/0/1";
+		
+		StringWriter out = new StringWriter();
+		new DFSM(encoding).encodeTo(out);
+		
+		assertEquals(encoding, out.toString());
+	}
+
+	@Test
+	public void testInternedStates() throws Exception {
+		
+		assertSame(IdentifiedState.valueOf(7), IdentifiedState.valueOf(7));
+		assertEquals(new IdentifiedState(7), IdentifiedState.valueOf(7));
+		assertEquals(IdentifiedState.valueOf(1000000), IdentifiedState.valueOf(1000000));
+		
+		DFSM aDFSM = new DFSM("0 1/a b/0,a,0;0,b,1;1,a,0;1,b,1/0/1");
+		
+		for(State s : aDFSM.reachableStates())
+			assertSame(IdentifiedState.valueOf(Integer.parseInt(s.encode())), s);
+	}
+
+	@Test
+	public void testWhitespace() throws Exception {
+		
+		String encoding = "0 1/a b/0 , a , 0; 0,b, 1 ;1, a, 0 ; 1, b, 1/0/ 1";
+		
+		assertEquals("0 1/a b/0,a,0;0,b,1;1,a,0;1,b,1/0/1", new DFSM(encoding).encode());
+	}
+	
+	@Test
+	public void testCompiledFromEncoding() throws Exception {
+		
+		// a machine that is compiled from its parsed encoding has the same tables as one compiled from its components
+		
+		String encoding = "5 2 9/b a/5,b,2;5,a,9;2,b,2;2,a,5;9,b,9;9,a,5/9/2 9";
+		
+		State s2 = IdentifiedState.valueOf(2), s5 = IdentifiedState.valueOf(5), s9 = IdentifiedState.valueOf(9);
+		
+		Set<Transition> transitions = new HashSet<Transition>();
+		transitions.add(new Transition(s5, 'b', s2));
+		transitions.add(new Transition(s5, 'a', s9));
+		transitions.add(new Transition(s2, 'b', s2));
+		transitions.add(new Transition(s2, 'a', s5));
+		transitions.add(new Transition(s9, 'b', s9));
+		transitions.add(new Transition(s9, 'a', s5));
+		
+		DFSM fromComponents = new DFSM(new HashSet<State>(Arrays.asList(s2, s5, s9)), new Alphabet(Arrays.asList('b', 'a')), 
+				new TransitionFunction(transitions), s9, new HashSet<State>(Arrays.asList(s2, s9)));
+		
+		ByteArrayOutputStream parsed = new ByteArrayOutputStream(), built = new ByteArrayOutputStream();
+		new DFSM(encoding).writeTo(parsed);
+		fromComponents.writeTo(built);
+		
+		assertArrayEquals(built.toByteArray(), parsed.toByteArray());
+	}
+	
+	@Test(expected = Exception.class)
+	public void testEpsilonTransition() throws Exception {
+		
+		new DFSM("0/a/0,a,0;0,,0/0/");
+	}
+	
+	@Test(expected = Exception.class)
+	public void testMissingInitialState() throws Exception {
+		
+		new DFSM("0/a/0,a,0");
+	}
+	
+	@Test(expected = Exception.class)
+	public void testInvalidStateId() throws Exception {
+		
+		new DFSM("0 x/a/0,a,0/0/");
+	}
 }
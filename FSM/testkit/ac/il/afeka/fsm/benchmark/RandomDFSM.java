@@ -0,0 +1,94 @@
+package ac.il.afeka.fsm.benchmark;
+import java.util.Random;
+
+/** Generates random machines and inputs for the benchmarks and the stress tests.
+ *
+ * <p>The output depends only on the arguments, so every run of a benchmark or a test sees the same machines.
+ * The symbols are drawn from the letters and digits (at most 62 symbols), which never clash with the
+ * separators of the string encoding.</p>
+ */
+public final class RandomDFSM {
+
+	private static final String SYMBOLS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+	/** The maximal number of symbols in a generated alphabet. */
+	public static final int MAX_SYMBOLS = SYMBOLS.length();
+
+	private RandomDFSM() {
+	}
+
+	/**
+	 * Returns the encoding of a random total DFSM.
+	 *
+	 * <p>The states are identified by <code>0..states-1</code>, 0 is the initial state, and every state is
+	 * accepting with probability one half.</p>
+	 *
+	 * @param states	the number of states
+	 * @param symbols	the number of symbols in the alphabet
+	 * @param seed		the seed of the random generator
+	 * @return an encoding that {@link ac.il.afeka.fsm.DFSM#DFSM(String)} accepts
+	 */
+	public static String encoding(int states, int symbols, long seed) {
+		if (states <= 0)
+			throw new IllegalArgumentException("A machine needs at least one state, got " + states);
+		if (symbols <= 0 || symbols > MAX_SYMBOLS)
+			throw new IllegalArgumentException("The number of symbols must be between 1 and " + MAX_SYMBOLS + ", got " + symbols);
+
+		Random random = new Random(seed);
+		StringBuilder encoding = new StringBuilder();
+
+		for(int s = 0; s < states; s++) {
+			if (s > 0)
+				encoding.append(' ');
+			encoding.append(s);
+		}
+		encoding.append('/');
+
+		for(int c = 0; c < symbols; c++) {
+			if (c > 0)
+				encoding.append(' ');
+			encoding.append(SYMBOLS.charAt(c));
+		}
+		encoding.append('/');
+
+		for(int s = 0; s < states; s++) {
+			for(int c = 0; c < symbols; c++) {
+				if (s > 0 || c > 0)
+					encoding.append(';');
+				encoding.append(s).append(',').append(SYMBOLS.charAt(c)).append(',').append(random.nextInt(states));
+			}
+		}
+		encoding.append("/0/");
+
+		boolean first = true;
+		for(int s = 0; s < states; s++) {
+			if (random.nextBoolean()) {
+				if (!first)
+					encoding.append(' ');
+				encoding.append(s);
+				first = false;
+			}
+		}
+
+		return encoding.toString();
+	}
+
+	/**
+	 * Returns a random input over the alphabet of the machines generated by {@link #encoding(int, int, long)}.
+	 *
+	 * @param length	the length of the input
+	 * @param symbols	the number of symbols in the alphabet
+	 * @param seed		the seed of the random generator
+	 * @return a string of <code>length</code> symbols
+	 */
+	public static String input(int length, int symbols, long seed) {
+		if (symbols <= 0 || symbols > MAX_SYMBOLS)
+			throw new IllegalArgumentException("The number of symbols must be between 1 and " + MAX_SYMBOLS + ", got " + symbols);
+
+		Random random = new Random(seed);
+		char[] input = new char[length];
+		for(int i = 0; i < length; i++)
+			input[i] = SYMBOLS.charAt(random.nextInt(symbols));
+		return new String(input);
+	}
+}